@@ -0,0 +1,144 @@
+package org.codehaus.mojo.properties.benchmark;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.maven.shared.invoker.InvocationOutputHandler;
+
+/**
+ * Collects the time of each execution of the plugin from the output of a build run with
+ * <code>-Dorg.slf4j.simpleLogger.showDateTime=true</code>, which prefixes every line with the milliseconds elapsed
+ * since Maven started. An execution lasts from its header until the next line that starts a new execution, a new
+ * module or the build summary.
+ */
+class PluginTimings
+    implements InvocationOutputHandler
+{
+    private static final Pattern LINE = Pattern.compile( "^(\\d+) \\[\\w+\\] (.*)$" );
+
+    private static final Pattern EXECUTION =
+        Pattern.compile( "^--- properties(?:-maven-plugin)?:[^:]+:(\\S+) \\((\\S+)\\) @ (\\S+) ---" );
+
+    private final List<Timing> timings = new ArrayList<Timing>();
+
+    private final List<String> output = new ArrayList<String>();
+
+    private String goal;
+
+    private String module;
+
+    private long start;
+
+    public void consumeLine( String line )
+    {
+        output.add( line );
+        Matcher timed = LINE.matcher( line );
+        if ( !timed.matches() )
+        {
+            return;
+        }
+        long millis = Long.parseLong( timed.group( 1 ) );
+        String message = timed.group( 2 );
+        if ( goal != null && ( message.startsWith( "-" ) || message.startsWith( "BUILD" )
+            || message.startsWith( "Reactor Summary" ) ) )
+        {
+            timings.add( new Timing( module, goal, millis - start ) );
+            goal = null;
+        }
+        Matcher execution = EXECUTION.matcher( message );
+        if ( execution.find() )
+        {
+            goal = execution.group( 1 );
+            module = execution.group( 3 );
+            start = millis;
+        }
+    }
+
+    /**
+     * @return The executions of the plugin, in the order they finished.
+     */
+    List<Timing> getTimings()
+    {
+        return Collections.unmodifiableList( timings );
+    }
+
+    /**
+     * @return The time of all executions of the plugin in each module, in reactor order.
+     */
+    Map<String, Long> perModule()
+    {
+        Map<String, Long> result = new LinkedHashMap<String, Long>();
+        for ( Timing timing : timings )
+        {
+            Long millis = result.get( timing.module );
+            result.put( timing.module, ( millis == null ? 0 : millis ) + timing.millis );
+        }
+        return result;
+    }
+
+    /**
+     * @return The time of all executions of the plugin.
+     */
+    long total()
+    {
+        long total = 0;
+        for ( Timing timing : timings )
+        {
+            total += timing.millis;
+        }
+        return total;
+    }
+
+    /**
+     * @return The complete output of the build, for reporting failures.
+     */
+    List<String> getOutput()
+    {
+        return Collections.unmodifiableList( output );
+    }
+
+    /**
+     * The time of one execution of a goal.
+     */
+    static class Timing
+    {
+        final String module;
+
+        final String goal;
+
+        final long millis;
+
+        Timing( String module, String goal, long millis )
+        {
+            this.module = module;
+            this.goal = goal;
+            this.millis = millis;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package org.codehaus.mojo.properties.benchmark;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+/**
+ * Generates a reactor of modules that each read their own property files and a file shared by all modules, and write
+ * their project properties back. Every tenth key refers to the previous one, so that resolution has work to do.
+ */
+class ReactorGenerator
+{
+    static final String GROUP_ID = "org.codehaus.mojo.properties.benchmark";
+
+    private static final String PLUGIN_GROUP_ID = "com.github.firedrum-marketing";
+
+    private final String pluginVersion;
+
+    private final int modules;
+
+    private final int files;
+
+    private final int keys;
+
+    /**
+     * @param pluginVersion The version of the plugin under test.
+     * @param modules The number of modules.
+     * @param files The number of property files of each module.
+     * @param keys The number of keys in each file.
+     */
+    ReactorGenerator( String pluginVersion, int modules, int files, int keys )
+    {
+        this.pluginVersion = pluginVersion;
+        this.modules = modules;
+        this.files = files;
+        this.keys = keys;
+    }
+
+    /**
+     * @param directory The directory of the reactor, which is replaced.
+     * @throws IOException If the reactor cannot be written.
+     */
+    void generate( File directory )
+        throws IOException
+    {
+        delete( directory );
+        write( new File( directory, "pom.xml" ), parentPom() );
+        write( new File( directory, "shared.properties" ), properties( "shared", keys ) );
+        for ( int m = 0; m < modules; m++ )
+        {
+            File module = new File( directory, module( m ) );
+            write( new File( module, "pom.xml" ), modulePom( m ) );
+            for ( int f = 0; f < files; f++ )
+            {
+                write( new File( module, "src/main/properties/file-" + f + ".properties" ),
+                       properties( module( m ) + ".file-" + f, keys ) );
+            }
+        }
+    }
+
+    static String module( int m )
+    {
+        return "module-" + m;
+    }
+
+    private String parentPom()
+    {
+        StringBuilder pom = new StringBuilder();
+        pom.append( "<project xmlns=\"http://maven.apache.org/POM/4.0.0\">\n" );
+        pom.append( "  <modelVersion>4.0.0</modelVersion>\n" );
+        pom.append( "  <groupId>" ).append( GROUP_ID ).append( "</groupId>\n" );
+        pom.append( "  <artifactId>reactor</artifactId>\n" );
+        pom.append( "  <version>1</version>\n" );
+        pom.append( "  <packaging>pom</packaging>\n" );
+        pom.append( "  <modules>\n" );
+        for ( int m = 0; m < modules; m++ )
+        {
+            pom.append( "    <module>" ).append( module( m ) ).append( "</module>\n" );
+        }
+        pom.append( "  </modules>\n" );
+        pom.append( "  <build>\n" );
+        pom.append( "    <pluginManagement>\n" );
+        pom.append( "      <plugins>\n" );
+        pom.append( "        <plugin>\n" );
+        pom.append( "          <groupId>" ).append( PLUGIN_GROUP_ID ).append( "</groupId>\n" );
+        pom.append( "          <artifactId>properties-maven-plugin</artifactId>\n" );
+        pom.append( "          <version>" ).append( pluginVersion ).append( "</version>\n" );
+        pom.append( "          <executions>\n" );
+        pom.append( "            <execution>\n" );
+        pom.append( "              <id>read</id>\n" );
+        pom.append( "              <phase>validate</phase>\n" );
+        pom.append( "              <goals>\n" );
+        pom.append( "                <goal>read-project-properties</goal>\n" );
+        pom.append( "              </goals>\n" );
+        pom.append( "              <configuration>\n" );
+        pom.append( "                <files>\n" );
+        pom.append( "                  <file>${project.basedir}/../shared.properties</file>\n" );
+        pom.append( "                  <file>${project.basedir}/src/main/properties</file>\n" );
+        pom.append( "                </files>\n" );
+        pom.append( "              </configuration>\n" );
+        pom.append( "            </execution>\n" );
+        pom.append( "            <execution>\n" );
+        pom.append( "              <id>write</id>\n" );
+        pom.append( "              <phase>validate</phase>\n" );
+        pom.append( "              <goals>\n" );
+        pom.append( "                <goal>write-project-properties</goal>\n" );
+        pom.append( "              </goals>\n" );
+        pom.append( "              <configuration>\n" );
+        pom.append( "                <outputFile>${project.build.directory}/project.properties</outputFile>\n" );
+        pom.append( "              </configuration>\n" );
+        pom.append( "            </execution>\n" );
+        pom.append( "          </executions>\n" );
+        pom.append( "        </plugin>\n" );
+        pom.append( "      </plugins>\n" );
+        pom.append( "    </pluginManagement>\n" );
+        pom.append( "  </build>\n" );
+        pom.append( "</project>\n" );
+        return pom.toString();
+    }
+
+    private String modulePom( int m )
+    {
+        StringBuilder pom = new StringBuilder();
+        pom.append( "<project xmlns=\"http://maven.apache.org/POM/4.0.0\">\n" );
+        pom.append( "  <modelVersion>4.0.0</modelVersion>\n" );
+        pom.append( "  <parent>\n" );
+        pom.append( "    <groupId>" ).append( GROUP_ID ).append( "</groupId>\n" );
+        pom.append( "    <artifactId>reactor</artifactId>\n" );
+        pom.append( "    <version>1</version>\n" );
+        pom.append( "  </parent>\n" );
+        pom.append( "  <artifactId>" ).append( module( m ) ).append( "</artifactId>\n" );
+        pom.append( "  <packaging>pom</packaging>\n" );
+        pom.append( "  <build>\n" );
+        pom.append( "    <plugins>\n" );
+        pom.append( "      <plugin>\n" );
+        pom.append( "        <groupId>" ).append( PLUGIN_GROUP_ID ).append( "</groupId>\n" );
+        pom.append( "        <artifactId>properties-maven-plugin</artifactId>\n" );
+        pom.append( "      </plugin>\n" );
+        pom.append( "    </plugins>\n" );
+        pom.append( "  </build>\n" );
+        pom.append( "</project>\n" );
+        return pom.toString();
+    }
+
+    private static String properties( String prefix, int keys )
+    {
+        StringBuilder properties = new StringBuilder();
+        for ( int k = 0; k < keys; k++ )
+        {
+            properties.append( prefix ).append( ".key-" ).append( k ).append( '=' );
+            if ( k % 10 == 9 )
+            {
+                properties.append( "${" ).append( prefix ).append( ".key-" ).append( k - 1 ).append( "}/" );
+            }
+            properties.append( "value-" ).append( k ).append( '\n' );
+        }
+        return properties.toString();
+    }
+
+    private static void write( File file, String content )
+        throws IOException
+    {
+        if ( !file.getParentFile().isDirectory() && !file.getParentFile().mkdirs() )
+        {
+            throw new IOException( "Cannot create " + file.getParentFile() );
+        }
+        Writer writer = new OutputStreamWriter( new FileOutputStream( file ), "UTF-8" );
+        try
+        {
+            writer.write( content );
+        }
+        finally
+        {
+            writer.close();
+        }
+    }
+
+    private static void delete( File file )
+        throws IOException
+    {
+        File[] children = file.listFiles();
+        if ( children != null )
+        {
+            for ( File child : children )
+            {
+                delete( child );
+            }
+        }
+        if ( file.exists() && !file.delete() )
+        {
+            throw new IOException( "Cannot delete " + file );
+        }
+    }
+}
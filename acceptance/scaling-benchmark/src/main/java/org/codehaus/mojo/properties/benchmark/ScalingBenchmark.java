@@ -0,0 +1,142 @@
+package org.codehaus.mojo.properties.benchmark;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.maven.shared.invoker.DefaultInvocationRequest;
+import org.apache.maven.shared.invoker.DefaultInvoker;
+import org.apache.maven.shared.invoker.InvocationRequest;
+import org.apache.maven.shared.invoker.InvocationResult;
+import org.apache.maven.shared.invoker.Invoker;
+import org.apache.maven.shared.invoker.MavenInvocationException;
+
+/**
+ * Builds generated reactors of increasing size offline and reports the time spent by the plugin in each module and in
+ * total, so that costs growing with the number of modules, such as the session properties accumulating across
+ * modules or shared files parsed again by every module, show up. Configured with the system properties
+ * <code>benchmark.modules</code> (a comma separated list of reactor sizes), <code>benchmark.files</code>,
+ * <code>benchmark.keys</code>, <code>benchmark.pluginVersion</code> and <code>benchmark.directory</code>. Each
+ * execution is also written to <code>report.csv</code> in the benchmark directory.
+ */
+public final class ScalingBenchmark
+{
+    private ScalingBenchmark()
+    {
+    }
+
+    public static void main( String[] args )
+        throws IOException, MavenInvocationException
+    {
+        String pluginVersion = System.getProperty( "benchmark.pluginVersion", "1.0.6" );
+        int files = Integer.getInteger( "benchmark.files", 5 );
+        int keys = Integer.getInteger( "benchmark.keys", 200 );
+        File directory = new File( System.getProperty( "benchmark.directory", "target/scaling" ) );
+
+        Invoker invoker = new DefaultInvoker();
+        String mavenHome = System.getProperty( "maven.home", System.getenv( "M2_HOME" ) );
+        if ( mavenHome != null )
+        {
+            invoker.setMavenHome( new File( mavenHome ) );
+        }
+
+        if ( !directory.isDirectory() && !directory.mkdirs() )
+        {
+            throw new IOException( "Cannot create " + directory );
+        }
+        PrintWriter report =
+            new PrintWriter( new OutputStreamWriter( new FileOutputStream( new File( directory, "report.csv" ) ),
+                                                     "UTF-8" ) );
+        try
+        {
+            report.println( "modules,files,keys,module,goal,millis" );
+            for ( String size : System.getProperty( "benchmark.modules", "1,10,50" ).split( "," ) )
+            {
+                int modules = Integer.parseInt( size.trim() );
+                File reactor = new File( directory, "n" + modules + "-m" + files + "-k" + keys );
+                new ReactorGenerator( pluginVersion, modules, files, keys ).generate( reactor );
+
+                long begin = System.nanoTime();
+                PluginTimings timings = build( invoker, reactor );
+                long build = ( System.nanoTime() - begin ) / 1000000;
+
+                for ( PluginTimings.Timing timing : timings.getTimings() )
+                {
+                    report.println( modules + "," + files + "," + keys + "," + timing.module + "," + timing.goal + ","
+                        + timing.millis );
+                }
+                report.flush();
+                summarize( modules, files, keys, timings, build );
+            }
+        }
+        finally
+        {
+            report.close();
+        }
+    }
+
+    private static PluginTimings build( Invoker invoker, File reactor )
+        throws MavenInvocationException
+    {
+        Properties properties = new Properties();
+        properties.setProperty( "org.slf4j.simpleLogger.showDateTime", "true" );
+
+        PluginTimings timings = new PluginTimings();
+        InvocationRequest request = new DefaultInvocationRequest();
+        request.setBaseDirectory( reactor );
+        request.setGoals( Arrays.asList( "validate" ) );
+        request.setOffline( true );
+        request.setInteractive( false );
+        request.setProperties( properties );
+        request.setOutputHandler( timings );
+        request.setErrorHandler( timings );
+
+        InvocationResult result = invoker.execute( request );
+        if ( result.getExitCode() != 0 )
+        {
+            for ( String line : timings.getOutput() )
+            {
+                System.err.println( line );
+            }
+            throw new IllegalStateException( "The build of " + reactor + " failed with exit code "
+                + result.getExitCode() );
+        }
+        return timings;
+    }
+
+    private static void summarize( int modules, int files, int keys, PluginTimings timings, long build )
+    {
+        Map<String, Long> perModule = timings.perModule();
+        long first = perModule.get( ReactorGenerator.module( 0 ) );
+        long last = perModule.get( ReactorGenerator.module( modules - 1 ) );
+        System.out.println( modules + " modules x " + files + " files x " + keys + " keys: plugin " + timings.total()
+            + " ms (" + timings.total() / modules + " ms per module, first " + first + " ms, last " + last
+            + " ms), build " + build + " ms" );
+    }
+}
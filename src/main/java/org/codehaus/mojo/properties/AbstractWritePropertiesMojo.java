@@ -20,10 +20,19 @@ package org.codehaus.mojo.properties;
  */
 
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /*
  * Licensed to the Apache Software Foundation (ASF) under one
@@ -57,45 +66,249 @@ public abstract class AbstractWritePropertiesMojo
     extends AbstractMojo
 {
 
+    private static final Comparator<String> LONGEST_FIRST = new Comparator<String>()
+    {
+        public int compare( String a, String b )
+        {
+            return b.length() - a.length();
+        }
+    };
+
     @Parameter( defaultValue = "${project}", required = true, readonly = true )
     private MavenProject project;
 
-    @Parameter( required = true )
+    /**
+     * The properties file to write. Either this, <code>outputs</code> or <code>shards</code> must be set. It is
+     * written like {@link Properties#store(java.io.OutputStream, String)} does, with a <code>#Properties</code> and a
+     * date comment and the platform line separator, but with keys in sorted order.
+     */
+    @Parameter
     private File outputFile;
 
     /**
+     * Further files to export the same properties to, in one of the formats <code>properties</code>,
+     * <code>env</code>, <code>json</code> or <code>java</code> (a class with a constant per property). All files are
+     * written in a single pass, with keys in sorted order.
+     */
+    @Parameter
+    private List<PropertyOutput> outputs = new ArrayList<PropertyOutput>();
+
+    /**
+     * Files to export the properties with a given key prefix to, so consumers can load only the namespace they need.
+     * A property is written to the shards with the longest prefix its key starts with, and to
+     * <code>outputFile</code> and <code>outputs</code> only when it belongs to no shard. Shards are written in
+     * parallel, and each file ending in <code>.gz</code> is compressed while it is written.
+     */
+    @Parameter
+    private List<PropertyShard> shards = new ArrayList<PropertyShard>();
+
+    /**
+     * Writes the properties to the given file and to all configured <code>outputs</code>, in a single pass, and to the
+     * configured <code>shards</code>. When there are shards, the given file and the outputs only receive the
+     * properties that belong to no shard. Each shard is written in parallel with the others.
+     *
      * @param properties {@link Properties}
-     * @param file {@link File}
+     * @param file {@link File}, may be <code>null</code> if there are <code>outputs</code> or <code>shards</code>
      * @throws MojoExecutionException {@link MojoExecutionException}
      */
     protected void writeProperties( Properties properties, File file )
         throws MojoExecutionException
     {
-        FileOutputStream fos = null;
-        try
+        if ( file == null && outputs.isEmpty() && shards.isEmpty() )
         {
-            fos = new FileOutputStream( file );
-            properties.store( fos, "Properties" );
+            throw noOutput();
         }
-        catch ( FileNotFoundException e )
+        List<PropertyOutput> targets = new ArrayList<PropertyOutput>( outputs.size() + 1 );
+        PropertyOutput storeCompatible = null;
+        if ( file != null )
         {
-            getLog().error( "Could not create FileOutputStream: " + fos );
-            throw new MojoExecutionException( e.getMessage(), e );
+            storeCompatible = new PropertyOutput( "properties", file );
+            targets.add( storeCompatible );
         }
-        catch ( IOException e )
+        targets.addAll( outputs );
+
+        // one pass over the sorted keys assigns each to the group of files it is written to
+        Map<String, WriteTask> sharded = new HashMap<String, WriteTask>();
+        for ( PropertyShard shard : shards )
         {
-            getLog().error( "Error writing properties: " + fos );
-            throw new MojoExecutionException( e.getMessage(), e );
+            WriteTask task = sharded.get( shard.getPrefix() );
+            if ( task == null )
+            {
+                task = new WriteTask( properties, null );
+                sharded.put( shard.getPrefix(), task );
+            }
+            task.targets.add( shard );
+        }
+        List<String> prefixes = new ArrayList<String>( sharded.keySet() );
+        Collections.sort( prefixes, LONGEST_FIRST );
+        WriteTask remainder = new WriteTask( properties, storeCompatible );
+        remainder.targets.addAll( targets );
+        for ( String key : new TreeSet<String>( properties.stringPropertyNames() ) )
+        {
+            WriteTask task = remainder;
+            for ( String prefix : prefixes )
+            {
+                if ( key.startsWith( prefix ) )
+                {
+                    task = sharded.get( prefix );
+                    break;
+                }
+            }
+            task.keys.add( key );
         }
 
+        List<WriteTask> tasks = new ArrayList<WriteTask>( sharded.size() + 1 );
+        if ( !remainder.targets.isEmpty() )
+        {
+            tasks.add( remainder );
+        }
+        tasks.addAll( sharded.values() );
+        int written = 0;
+        for ( WriteTask task : tasks )
+        {
+            written += task.targets.size();
+        }
+
+        Object event = PluginEvents.beginWrite();
+        if ( tasks.size() == 1 )
+        {
+            WriteTask task = tasks.get( 0 );
+            try
+            {
+                task.call();
+            }
+            catch ( Exception e )
+            {
+                throw failure( e, task );
+            }
+        }
+        else if ( !tasks.isEmpty() )
+        {
+            run( tasks );
+        }
+        PluginEvents.commitWrite( event, tasks.isEmpty() ? null : tasks.get( 0 ).targets.get( 0 ).getFile().getPath(),
+                                  properties.size(), written );
+    }
+
+    private void run( List<WriteTask> tasks )
+        throws MojoExecutionException
+    {
+        ExecutorService executor = WorkerPools.newWorkerPool( "properties-writer", tasks.size() );
         try
         {
-            fos.close();
+            List<Future<Void>> futures = new ArrayList<Future<Void>>( tasks.size() );
+            for ( WriteTask task : tasks )
+            {
+                futures.add( executor.submit( task ) );
+            }
+            // let every file be completed or aborted before reporting the first failure
+            MojoExecutionException failure = null;
+            for ( int i = 0; i < futures.size(); i++ )
+            {
+                try
+                {
+                    futures.get( i ).get();
+                }
+                catch ( InterruptedException e )
+                {
+                    Thread.currentThread().interrupt();
+                    throw new MojoExecutionException( "Interrupted while writing properties", e );
+                }
+                catch ( ExecutionException e )
+                {
+                    if ( failure == null )
+                    {
+                        failure = failure( e.getCause(), tasks.get( i ) );
+                    }
+                }
+            }
+            if ( failure != null )
+            {
+                throw failure;
+            }
         }
-        catch ( IOException e )
+        finally
         {
-            getLog().error( "Error closing FileOutputStream: " + fos );
-            throw new MojoExecutionException( e.getMessage(), e );
+            executor.shutdownNow();
+        }
+    }
+
+    private MojoExecutionException failure( Throwable cause, WriteTask task )
+    {
+        if ( !( cause instanceof IllegalArgumentException ) )
+        {
+            getLog().error( "Error writing properties" + ( task.current != null ? " to " + task.current : "" ) );
+        }
+        return new MojoExecutionException( cause.getMessage(), cause );
+    }
+
+    /**
+     * Writes a sorted list of keys to a group of files in a single pass.
+     */
+    private static class WriteTask
+        implements Callable<Void>
+    {
+        private final Properties properties;
+
+        private final PropertyOutput storeCompatible;
+
+        private final List<PropertyOutput> targets = new ArrayList<PropertyOutput>();
+
+        private final List<String> keys = new ArrayList<String>();
+
+        private PropertyOutput current;
+
+        WriteTask( Properties properties, PropertyOutput storeCompatible )
+        {
+            this.properties = properties;
+            this.storeCompatible = storeCompatible;
+        }
+
+        public Void call()
+            throws IOException
+        {
+            List<PropertyWriter> writers = new ArrayList<PropertyWriter>( targets.size() );
+            try
+            {
+                for ( PropertyOutput target : targets )
+                {
+                    current = target;
+                    writers.add( target == storeCompatible ? PropertyWriter.openStoreCompatible( target.getFile() )
+                                    : PropertyWriter.open( target ) );
+                }
+                current = null;
+                for ( String key : keys )
+                {
+                    String value = properties.getProperty( key );
+                    for ( PropertyWriter writer : writers )
+                    {
+                        writer.write( key, value );
+                    }
+                }
+                for ( PropertyWriter writer : writers )
+                {
+                    writer.finish();
+                }
+                return null;
+            }
+            catch ( IllegalArgumentException e )
+            {
+                abort( writers );
+                throw e;
+            }
+            catch ( IOException e )
+            {
+                abort( writers );
+                throw e;
+            }
+        }
+    }
+
+    private static void abort( List<PropertyWriter> writers )
+    {
+        for ( PropertyWriter writer : writers )
+        {
+            writer.abort();
         }
     }
 
@@ -105,17 +318,55 @@ public abstract class AbstractWritePropertiesMojo
     protected void validateOutputFile()
         throws MojoExecutionException
     {
-        if ( outputFile.isDirectory() )
+        if ( outputFile == null && outputs.isEmpty() && shards.isEmpty() )
+        {
+            throw noOutput();
+        }
+        List<File> files = new ArrayList<File>();
+        if ( outputFile != null )
+        {
+            files.add( outputFile );
+        }
+        for ( PropertyOutput output : outputs )
+        {
+            if ( output.getFile() == null )
+            {
+                throw new MojoExecutionException( "Every output needs a file" );
+            }
+            files.add( output.getFile() );
+        }
+        for ( PropertyShard shard : shards )
         {
-            throw new MojoExecutionException( "outputFile must be a file and not a directory" );
+            if ( shard.getPrefix() == null || shard.getPrefix().length() == 0 )
+            {
+                throw new MojoExecutionException( "Every shard needs a prefix" );
+            }
+            if ( shard.getFile() == null )
+            {
+                throw new MojoExecutionException( "Every shard needs a file" );
+            }
+            files.add( shard.getFile() );
         }
-        // ensure path exists
-        if ( outputFile.getParentFile() != null )
+        for ( File file : files )
         {
-            outputFile.getParentFile().mkdirs();
+            if ( file.isDirectory() )
+            {
+                throw new MojoExecutionException( ( file == outputFile ? "outputFile" : "output " + file )
+                    + " must be a file and not a directory" );
+            }
+            // ensure path exists
+            if ( file.getParentFile() != null )
+            {
+                file.getParentFile().mkdirs();
+            }
         }
     }
 
+    private MojoExecutionException noOutput()
+    {
+        return new MojoExecutionException( "No file to write the properties to: set outputFile, outputs or shards" );
+    }
+
     /**
      * @return {@link MavenProject}
      */
@@ -132,4 +383,26 @@ public abstract class AbstractWritePropertiesMojo
         return outputFile;
     }
 
+    /**
+     * Default scope for test access.
+     *
+     * @param outputFile The properties file to write.
+     * @param outputs Further files to export to.
+     */
+    void setOutputs( File outputFile, List<PropertyOutput> outputs )
+    {
+        this.outputFile = outputFile;
+        this.outputs = outputs;
+    }
+
+    /**
+     * Default scope for test access.
+     *
+     * @param shards Files to export the properties with a given key prefix to.
+     */
+    void setShards( List<PropertyShard> shards )
+    {
+        this.shards = shards;
+    }
+
 }
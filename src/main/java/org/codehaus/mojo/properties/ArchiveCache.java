@@ -0,0 +1,81 @@
+package org.codehaus.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.ZipFile;
+
+/**
+ * Keeps archives open for the duration of an execution, so that the central directory of an archive is read only
+ * once no matter how many of its entries are read.
+ */
+class ArchiveCache
+{
+    private final Map<File, ZipFile> archives = new LinkedHashMap<File, ZipFile>();
+
+    /**
+     * @param file The archive.
+     * @return The open archive.
+     * @throws IOException If the archive could not be opened.
+     */
+    public synchronized ZipFile open( File file )
+        throws IOException
+    {
+        File key = file.getAbsoluteFile();
+        ZipFile archive = archives.get( key );
+        if ( archive == null )
+        {
+            archive = new ZipFile( key );
+            archives.put( key, archive );
+        }
+        return archive;
+    }
+
+    /**
+     * Closes all archives opened so far.
+     *
+     * @throws IOException If an archive could not be closed.
+     */
+    public synchronized void close()
+        throws IOException
+    {
+        IOException failure = null;
+        for ( ZipFile archive : archives.values() )
+        {
+            try
+            {
+                archive.close();
+            }
+            catch ( IOException e )
+            {
+                failure = e;
+            }
+        }
+        archives.clear();
+        if ( failure != null )
+        {
+            throw failure;
+        }
+    }
+}
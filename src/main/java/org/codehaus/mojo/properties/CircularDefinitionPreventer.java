@@ -44,6 +44,18 @@ class CircularDefinitionPreventer
 
     private final Set<String> keysUsed = new HashSet<String>();
 
+    private final PlaceholderSyntax syntax;
+
+    CircularDefinitionPreventer()
+    {
+        this( PlaceholderSyntax.DEFAULT );
+    }
+
+    CircularDefinitionPreventer( PlaceholderSyntax syntax )
+    {
+        this.syntax = syntax;
+    }
+
     /**
      * @param key The key.
      * @param value The values.
@@ -80,8 +92,6 @@ class CircularDefinitionPreventer
     }
 
     private boolean isValueResolved(String value) {
-        int prefixPos = value.indexOf( "${" );
-        int suffixPos = value.indexOf( "}" );
-        return !(prefixPos >= 0 && suffixPos > prefixPos);
+        return syntax.looksResolved( value );
     }
 }
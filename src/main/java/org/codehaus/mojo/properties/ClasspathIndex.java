@@ -0,0 +1,292 @@
+package org.codehaus.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.codehaus.plexus.util.SelectorUtils;
+
+/**
+ * An index of the resources in the jars and directories of a class path, built once so that resources can be looked
+ * up without scanning the class path again and so that wildcard patterns can be matched. Only the names are kept,
+ * URLs are created for the resources that are looked up.
+ */
+class ClasspathIndex
+{
+    private final List<Root> roots;
+
+    /** The root that contains a resource first in class path order, by name. */
+    private final Map<String, Root> firstMatches = new HashMap<String, Root>();
+
+    private ClasspathIndex( List<Root> roots )
+    {
+        this.roots = roots;
+        for ( Root root : roots )
+        {
+            for ( String name : root.names )
+            {
+                if ( !firstMatches.containsKey( name ) )
+                {
+                    firstMatches.put( name, root );
+                }
+            }
+        }
+    }
+
+    /**
+     * Indexes the class path of the given class loader, listing its jars and directories in parallel.
+     *
+     * @param loader The class loader, only its own class path is indexed.
+     * @return The index.
+     * @throws IOException If a jar or directory could not be listed.
+     */
+    public static ClasspathIndex build( ClassLoader loader )
+        throws IOException
+    {
+        List<URL> urls = classpathOf( loader );
+        List<Root> roots = new ArrayList<Root>( urls.size() );
+        if ( urls.isEmpty() )
+        {
+            return new ClasspathIndex( roots );
+        }
+
+        ExecutorService executor = WorkerPools.newWorkerPool( "properties-classpath-index", urls.size() );
+        try
+        {
+            List<Future<Root>> listings = new ArrayList<Future<Root>>( urls.size() );
+            for ( final URL url : urls )
+            {
+                listings.add( executor.submit( new Callable<Root>()
+                {
+                    public Root call()
+                        throws IOException
+                    {
+                        return Root.list( url );
+                    }
+                } ) );
+            }
+            for ( Future<Root> listing : listings )
+            {
+                Root root = get( listing );
+                if ( root != null )
+                {
+                    roots.add( root );
+                }
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+        return new ClasspathIndex( roots );
+    }
+
+    /**
+     * @param name The resource name, without a leading slash.
+     * @return The URL of the first resource with the name in class path order, or <code>null</code>.
+     */
+    public URL find( String name )
+    {
+        Root root = firstMatches.get( name );
+        return root != null ? root.resolve( name ) : null;
+    }
+
+    /**
+     * @param pattern An Ant style pattern such as <code>config/**&#47;*.properties</code>.
+     * @return The URLs of all matching resources, in class path order and then by name.
+     */
+    public List<URL> findAll( String pattern )
+    {
+        List<URL> matches = new ArrayList<URL>();
+        for ( Root root : roots )
+        {
+            for ( String name : root.names )
+            {
+                if ( SelectorUtils.matchPath( pattern, name, "/", true ) )
+                {
+                    matches.add( root.resolve( name ) );
+                }
+            }
+        }
+        return matches;
+    }
+
+    private static List<URL> classpathOf( ClassLoader loader )
+        throws MalformedURLException
+    {
+        List<URL> urls = new ArrayList<URL>();
+        if ( loader instanceof URLClassLoader )
+        {
+            Collections.addAll( urls, ( (URLClassLoader) loader ).getURLs() );
+        }
+        else if ( loader == ClassLoader.getSystemClassLoader() )
+        {
+            // the application class loader is no URLClassLoader since Java 9
+            for ( String entry : System.getProperty( "java.class.path", "" ).split( File.pathSeparator ) )
+            {
+                if ( entry.length() > 0 )
+                {
+                    urls.add( new File( entry ).toURI().toURL() );
+                }
+            }
+        }
+        return urls;
+    }
+
+    private static Root get( Future<Root> listing )
+        throws IOException
+    {
+        try
+        {
+            return listing.get();
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException( "Interrupted while indexing the class path" );
+        }
+        catch ( ExecutionException e )
+        {
+            if ( e.getCause() instanceof IOException )
+            {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException( "Error indexing the class path", e.getCause() );
+        }
+    }
+
+    /**
+     * A jar or directory on the class path with the sorted names of the resources it contains.
+     */
+    private static class Root
+    {
+        private final URL base;
+
+        private final List<String> names;
+
+        private Root( URL base, List<String> names )
+        {
+            Collections.sort( names );
+            this.base = base;
+            this.names = names;
+        }
+
+        static Root list( URL url )
+            throws IOException
+        {
+            if ( !"file".equals( url.getProtocol() ) )
+            {
+                return null;
+            }
+            File file;
+            try
+            {
+                file = new File( url.toURI() );
+            }
+            catch ( URISyntaxException e )
+            {
+                file = new File( url.getPath() );
+            }
+            if ( file.isDirectory() )
+            {
+                return new Root( file.toURI().toURL(), listDirectory( file.toPath() ) );
+            }
+            if ( file.isFile() )
+            {
+                return new Root( new URL( "jar:" + file.toURI() + "!/" ), listArchive( file ) );
+            }
+            return null;
+        }
+
+        URL resolve( String name )
+        {
+            try
+            {
+                return new URL( base, name );
+            }
+            catch ( MalformedURLException e )
+            {
+                throw new IllegalStateException( "Cannot resolve " + name + " against " + base, e );
+            }
+        }
+
+        private static List<String> listArchive( File file )
+            throws IOException
+        {
+            List<String> names = new ArrayList<String>();
+            ZipFile zip = new ZipFile( file );
+            try
+            {
+                for ( Enumeration<? extends ZipEntry> entries = zip.entries(); entries.hasMoreElements(); )
+                {
+                    ZipEntry entry = entries.nextElement();
+                    if ( !entry.isDirectory() )
+                    {
+                        names.add( entry.getName() );
+                    }
+                }
+            }
+            finally
+            {
+                zip.close();
+            }
+            return names;
+        }
+
+        private static List<String> listDirectory( final Path directory )
+            throws IOException
+        {
+            final List<String> names = new ArrayList<String>();
+            Files.walkFileTree( directory, new SimpleFileVisitor<Path>()
+            {
+                public FileVisitResult visitFile( Path file, BasicFileAttributes attributes )
+                {
+                    names.add( directory.relativize( file ).toString().replace( File.separatorChar, '/' ) );
+                    return FileVisitResult.CONTINUE;
+                }
+            } );
+            return names;
+        }
+    }
+}
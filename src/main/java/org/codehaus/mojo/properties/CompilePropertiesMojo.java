@@ -0,0 +1,221 @@
+package org.codehaus.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+/**
+ * The compile-properties goal compiles property files into a single binary bundle that
+ * <code>read-project-properties</code> can load without parsing text. Files are merged in the given order,
+ * so later files take precedence.
+ */
+@Mojo( name = "compile-properties", defaultPhase = LifecyclePhase.NONE, threadSafe = true )
+public class CompilePropertiesMojo
+    extends AbstractMojo
+{
+    /**
+     * The properties files to compile. As for <code>read-project-properties</code>, entries may be directories or
+     * Ant style patterns, files ending in <code>.gz</code> are decompressed, JSON and YAML files are flattened and
+     * bundles are merged. The <code>outputFile</code> itself is skipped if an entry matches it. Relative entries are
+     * resolved against the project directory.
+     */
+    @Parameter( required = true )
+    private File[] files;
+
+    /**
+     * The bundle to write, which should end in <code>.pbundle</code> to be recognized when it is read.
+     */
+    @Parameter( required = true )
+    private File outputFile;
+
+    /**
+     * If the plugin should be quiet if any of the files was not found, or a directory or pattern matched no files.
+     */
+    @Parameter( defaultValue = "false" )
+    private boolean quiet;
+
+    @Parameter( defaultValue = "${project.basedir}", readonly = true )
+    private File basedir;
+
+    /** {@inheritDoc} */
+    public void execute()
+        throws MojoExecutionException
+    {
+        Properties properties = new Properties();
+        for ( File file : inputs() )
+        {
+            getLog().debug( "Compiling properties from " + file );
+            load( file, properties );
+        }
+
+        if ( !PropertyBundle.isBundle( outputFile ) )
+        {
+            getLog().warn( outputFile + " does not end in " + PropertyBundle.EXTENSION
+                + " and will be read as a text properties file" );
+        }
+        if ( outputFile.getParentFile() != null )
+        {
+            outputFile.getParentFile().mkdirs();
+        }
+        try
+        {
+            PropertyBundle.write( properties, outputFile );
+        }
+        catch ( IOException e )
+        {
+            throw new MojoExecutionException( "Error writing property bundle " + outputFile, e );
+        }
+        getLog().info( "Compiled " + properties.size() + " properties into " + outputFile );
+    }
+
+    private List<File> inputs()
+        throws MojoExecutionException
+    {
+        List<File> inputs = new ArrayList<File>();
+        for ( File entry : files )
+        {
+            File file = FileExpander.resolve( entry, basedir );
+            if ( !FileExpander.needsExpansion( file ) )
+            {
+                if ( file.exists() )
+                {
+                    inputs.add( file );
+                }
+                else
+                {
+                    missing( file );
+                }
+                continue;
+            }
+            List<File> expanded;
+            try
+            {
+                expanded = FileExpander.expand( file );
+            }
+            catch ( IOException e )
+            {
+                throw new MojoExecutionException( "Error listing files of " + file, e );
+            }
+            // a directory or pattern may match the bundle of an earlier run
+            File output = outputFile.getAbsoluteFile();
+            for ( Iterator<File> i = expanded.iterator(); i.hasNext(); )
+            {
+                if ( i.next().getAbsoluteFile().equals( output ) )
+                {
+                    getLog().debug( "Skipping the output file " + outputFile );
+                    i.remove();
+                }
+            }
+            if ( expanded.isEmpty() )
+            {
+                missing( file );
+            }
+            inputs.addAll( expanded );
+        }
+        return inputs;
+    }
+
+    private void missing( File file )
+        throws MojoExecutionException
+    {
+        if ( quiet )
+        {
+            getLog().info( "Quiet processing - ignoring properties cannot be loaded from " + file );
+        }
+        else
+        {
+            throw new MojoExecutionException( "Properties could not be loaded from " + file );
+        }
+    }
+
+    private static void load( File file, Properties properties )
+        throws MojoExecutionException
+    {
+        try
+        {
+            if ( PropertyBundle.isBundle( file ) )
+            {
+                PropertyBundle.open( file ).copyTo( properties, null );
+                return;
+            }
+            InputStream stream = new BufferedInputStream( new FileInputStream( file ) );
+            stream = Compression.forName( file.getName() ).decompress( stream );
+            try
+            {
+                SourceFormat.forName( file.getName() ).load( stream, properties );
+            }
+            finally
+            {
+                stream.close();
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new MojoExecutionException( "Error reading properties from " + file, e );
+        }
+    }
+
+    /**
+     * Default scope for test access.
+     *
+     * @param files The files to compile.
+     * @param outputFile The bundle to write.
+     */
+    void setFiles( File[] files, File outputFile )
+    {
+        this.files = files;
+        this.outputFile = outputFile;
+    }
+
+    /**
+     * Default scope for test access.
+     *
+     * @param basedir The project directory.
+     */
+    void setBasedir( File basedir )
+    {
+        this.basedir = basedir;
+    }
+
+    /**
+     * Default scope for test access.
+     *
+     * @param quiet Set to <code>true</code> if missing files can be skipped.
+     */
+    void setQuiet( boolean quiet )
+    {
+        this.quiet = quiet;
+    }
+}
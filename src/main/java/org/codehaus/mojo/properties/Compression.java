@@ -0,0 +1,135 @@
+package org.codehaus.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compression formats that property sources are transparently decompressed from while they are parsed, and that
+ * written files are compressed with while they are written.
+ */
+enum Compression
+{
+    NONE
+    {
+        public InputStream decompress( InputStream stream )
+        {
+            return stream;
+        }
+
+        public OutputStream compress( OutputStream stream )
+        {
+            return stream;
+        }
+    },
+    GZIP
+    {
+        public InputStream decompress( InputStream stream )
+            throws IOException
+        {
+            return new GZIPInputStream( stream, BUFFER_SIZE );
+        }
+
+        public OutputStream compress( OutputStream stream )
+            throws IOException
+        {
+            return new GZIPOutputStream( stream, BUFFER_SIZE );
+        }
+    },
+    DEFLATE
+    {
+        public InputStream decompress( InputStream stream )
+        {
+            return new InflaterInputStream( stream );
+        }
+
+        public OutputStream compress( OutputStream stream )
+        {
+            return new DeflaterOutputStream( stream );
+        }
+    };
+
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * @param stream The compressed stream.
+     * @return A stream of the decompressed content.
+     * @throws IOException If the stream does not start with a valid header.
+     */
+    public abstract InputStream decompress( InputStream stream )
+        throws IOException;
+
+    /**
+     * @param stream The stream to write the compressed content to.
+     * @return A stream that compresses what is written to it, closing it finishes and closes the given stream.
+     * @throws IOException If the header could not be written.
+     */
+    public abstract OutputStream compress( OutputStream stream )
+        throws IOException;
+
+    /**
+     * @param name A file name or URL path.
+     * @return The compression implied by the extension.
+     */
+    public static Compression forName( String name )
+    {
+        if ( name != null && name.toLowerCase( Locale.ENGLISH ).endsWith( ".gz" ) )
+        {
+            return GZIP;
+        }
+        return NONE;
+    }
+
+    /**
+     * @param contentEncoding The value of an HTTP <code>Content-Encoding</code> header, may be <code>null</code>.
+     * @return The matching compression.
+     * @throws IOException If the encoding is not supported.
+     */
+    public static Compression forContentEncoding( String contentEncoding )
+        throws IOException
+    {
+        if ( contentEncoding == null )
+        {
+            return NONE;
+        }
+        String encoding = contentEncoding.trim().toLowerCase( Locale.ENGLISH );
+        if ( encoding.length() == 0 || "identity".equals( encoding ) )
+        {
+            return NONE;
+        }
+        if ( "gzip".equals( encoding ) || "x-gzip".equals( encoding ) )
+        {
+            return GZIP;
+        }
+        if ( "deflate".equals( encoding ) )
+        {
+            return DEFLATE;
+        }
+        throw new IOException( "Unsupported Content-Encoding " + contentEncoding );
+    }
+}
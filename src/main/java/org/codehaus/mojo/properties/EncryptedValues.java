@@ -0,0 +1,171 @@
+package org.codehaus.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyStore;
+import java.security.SecureRandom;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+
+import org.codehaus.plexus.util.Base64;
+
+/**
+ * Decrypts values of the form <code>ENC(...)</code>, which hold the Base64 encoding of a random 12 byte
+ * initialization vector followed by the AES/GCM encryption of the UTF-8 plain text. Each distinct value is decrypted
+ * once and remembered for the rest of the execution.
+ */
+class EncryptedValues
+{
+    private static final String PREFIX = "ENC(";
+
+    private static final String SUFFIX = ")";
+
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+
+    private static final int IV_LENGTH = 12;
+
+    private static final int TAG_BITS = 128;
+
+    private final SecretKey key;
+
+    private final Map<String, String> decrypted = new HashMap<String, String>();
+
+    EncryptedValues( SecretKey key )
+    {
+        this.key = key;
+    }
+
+    /**
+     * @param keystore The keystore file.
+     * @param type The type of the keystore, such as <code>JCEKS</code> or <code>PKCS12</code>.
+     * @param password The password of the keystore and of the key.
+     * @param alias The alias of the secret key.
+     * @return The values encrypted with the key.
+     * @throws IOException If the keystore cannot be read or does not hold a secret key under the alias.
+     */
+    static EncryptedValues load( File keystore, String type, String password, String alias )
+        throws IOException
+    {
+        char[] secret = password != null ? password.toCharArray() : null;
+        InputStream in = new FileInputStream( keystore );
+        try
+        {
+            KeyStore store = KeyStore.getInstance( type );
+            store.load( in, secret );
+            Key key = store.getKey( alias, secret );
+            if ( !( key instanceof SecretKey ) )
+            {
+                throw new IOException( "No secret key " + alias + " in " + keystore );
+            }
+            return new EncryptedValues( (SecretKey) key );
+        }
+        catch ( GeneralSecurityException e )
+        {
+            throw new IOException( "Cannot read the key " + alias + " from " + keystore + ": " + e.getMessage(), e );
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+
+    /**
+     * @param value A property value, may be <code>null</code>.
+     * @return <code>true</code> if the value is of the form <code>ENC(...)</code>.
+     */
+    static boolean isEncrypted( String value )
+    {
+        return value != null && value.startsWith( PREFIX ) && value.endsWith( SUFFIX )
+            && value.length() >= PREFIX.length() + SUFFIX.length();
+    }
+
+    /**
+     * @param name The key of the value, to report failures.
+     * @param value A value of the form <code>ENC(...)</code>.
+     * @return The plain text.
+     * @throws IllegalArgumentException If the value cannot be decrypted with the key.
+     */
+    String decrypt( String name, String value )
+    {
+        String plain = decrypted.get( value );
+        if ( plain == null )
+        {
+            String encoded = value.substring( PREFIX.length(), value.length() - SUFFIX.length() );
+            byte[] encrypted = Base64.decodeBase64( encoded.getBytes( StandardCharsets.US_ASCII ) );
+            if ( encrypted.length < IV_LENGTH + TAG_BITS / 8 )
+            {
+                throw new IllegalArgumentException( "Cannot decrypt the value of " + name + ": too short" );
+            }
+            try
+            {
+                Cipher cipher = Cipher.getInstance( TRANSFORMATION );
+                cipher.init( Cipher.DECRYPT_MODE, key, new GCMParameterSpec( TAG_BITS, encrypted, 0, IV_LENGTH ) );
+                byte[] bytes = cipher.doFinal( encrypted, IV_LENGTH, encrypted.length - IV_LENGTH );
+                plain = new String( bytes, StandardCharsets.UTF_8 );
+            }
+            catch ( GeneralSecurityException e )
+            {
+                throw new IllegalArgumentException( "Cannot decrypt the value of " + name + ": " + e, e );
+            }
+            decrypted.put( value, plain );
+        }
+        return plain;
+    }
+
+    /**
+     * @param plain The plain text.
+     * @return The value of the form <code>ENC(...)</code> that decrypts to the plain text.
+     * @throws GeneralSecurityException If the key cannot encrypt.
+     */
+    String encrypt( String plain )
+        throws GeneralSecurityException
+    {
+        byte[] iv = new byte[IV_LENGTH];
+        new SecureRandom().nextBytes( iv );
+        Cipher cipher = Cipher.getInstance( TRANSFORMATION );
+        cipher.init( Cipher.ENCRYPT_MODE, key, new GCMParameterSpec( TAG_BITS, iv ) );
+        byte[] ciphertext = cipher.doFinal( plain.getBytes( StandardCharsets.UTF_8 ) );
+        byte[] encrypted = new byte[IV_LENGTH + ciphertext.length];
+        System.arraycopy( iv, 0, encrypted, 0, IV_LENGTH );
+        System.arraycopy( ciphertext, 0, encrypted, IV_LENGTH, ciphertext.length );
+        return PREFIX + new String( Base64.encodeBase64( encrypted ), StandardCharsets.US_ASCII ) + SUFFIX;
+    }
+
+    /**
+     * @return The number of distinct values decrypted so far.
+     */
+    int size()
+    {
+        return decrypted.size();
+    }
+}
@@ -23,29 +23,41 @@ class ExpansionBuffer
 {
     private final StringBuilder resolved = new StringBuilder();
 
+    private final PlaceholderSyntax syntax;
+
     private String unresolved;
 
+    private PlaceholderSyntax.Match next;
+
+    private int delimiter;
+
     public ExpansionBuffer( String unresolved )
+    {
+        this( unresolved, PlaceholderSyntax.DEFAULT );
+    }
+
+    public ExpansionBuffer( String unresolved, PlaceholderSyntax syntax )
     {
         this.unresolved = unresolved != null ? unresolved : "";
+        this.syntax = syntax;
     }
 
     public boolean hasMoreLegalPlaceholders()
     {
-        int prefixPos = unresolved.indexOf( "${" );
-        int suffixPos = unresolved.indexOf( "}", prefixPos + 2 );
-        return prefixPos >= 0 && suffixPos >= 0;
+        next = syntax.find( unresolved, 0 );
+        return next != null;
     }
 
     public String extractPropertyKey()
     {
-        advanceToNextPrefix();
+        PlaceholderSyntax.Match match = next != null ? next : syntax.find( unresolved, 0 );
+        next = null;
 
-        discardPrefix();
+        advanceToNextPrefix( match );
 
-        String key = beforeNextSuffix();
+        String key = unresolved.substring( match.keyStart, match.keyEnd );
 
-        discardToAfterNextSuffix();
+        discardToAfterNextSuffix( match );
 
         return key;
     }
@@ -68,6 +80,11 @@ class ExpansionBuffer
         }
     }
 
+    public void addLiteral( String value )
+    {
+        resolved.append( value );
+    }
+
     private boolean replaced( String value )
     {
         return value != null;
@@ -80,35 +97,17 @@ class ExpansionBuffer
 
     private void skipUnresolvedPlaceholder( String newKey )
     {
-        resolved.append( "${" ).append( newKey ).append( "}" );
-    }
-
-    private void discardToAfterNextSuffix()
-    {
-        int propertySuffixPos = unresolved.indexOf( "}" );
-        unresolved = unresolved.substring( propertySuffixPos + 1 );
-    }
-
-    private void advanceToNextPrefix()
-    {
-        resolved.append( beforePrefix() );
-    }
-
-    private void discardPrefix()
-    {
-        int propertyPrefixPos = unresolved.indexOf( "${" );
-        unresolved = unresolved.substring( propertyPrefixPos + 2 );
+        resolved.append( syntax.placeholder( delimiter, newKey ) );
     }
 
-    private String beforePrefix()
+    private void discardToAfterNextSuffix( PlaceholderSyntax.Match match )
     {
-        int propertyPrefixPos = unresolved.indexOf( "${" );
-        return unresolved.substring( 0, propertyPrefixPos );
+        delimiter = match.delimiter;
+        unresolved = unresolved.substring( match.end );
     }
 
-    private String beforeNextSuffix()
+    private void advanceToNextPrefix( PlaceholderSyntax.Match match )
     {
-        int propertySuffixPos = unresolved.indexOf( "}" );
-        return unresolved.substring( 0, propertySuffixPos );
+        resolved.append( unresolved, 0, match.start );
     }
 }
@@ -0,0 +1,172 @@
+package org.codehaus.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.codehaus.plexus.util.SelectorUtils;
+
+/**
+ * Expands directories and Ant style patterns such as <code>config/**&#47;*.properties</code> given as
+ * <code>files</code> into the files they denote, sorted by their path so that the order of precedence is stable.
+ */
+final class FileExpander
+{
+    /**
+     * The files read from a directory.
+     */
+    static final String[] DIRECTORY_INCLUDES = { "**/*.properties", "**/*.properties.gz", "**/*.pbundle" };
+
+    private FileExpander()
+    {
+    }
+
+    /**
+     * @param entry A file, directory or pattern as configured.
+     * @param basedir The project directory, may be <code>null</code>.
+     * @return The entry relative to the project directory rather than the working directory, if it is relative.
+     */
+    static File resolve( File entry, File basedir )
+    {
+        return entry.isAbsolute() || basedir == null ? entry : new File( basedir, entry.getPath() );
+    }
+
+    /**
+     * @param entry A file, directory or pattern.
+     * @return <code>true</code> if the entry denotes several files.
+     */
+    static boolean needsExpansion( File entry )
+    {
+        return isPattern( entry.getPath() ) || entry.isDirectory();
+    }
+
+    /**
+     * @param entry A directory or pattern, already resolved against the project directory.
+     * @return The matching files sorted by their path relative to the directory or the fixed part of the pattern,
+     *         empty if there are none.
+     * @throws IOException If a directory could not be read.
+     */
+    static List<File> expand( File entry )
+        throws IOException
+    {
+        if ( entry.isDirectory() )
+        {
+            return scan( entry, DIRECTORY_INCLUDES );
+        }
+
+        String path = entry.getPath().replace( File.separatorChar, '/' );
+        int wildcard = firstWildcard( path );
+        int separator = path.lastIndexOf( '/', wildcard );
+        File base = new File( separator < 0 ? "." : path.substring( 0, separator + 1 ) );
+        if ( !base.isDirectory() )
+        {
+            return Collections.emptyList();
+        }
+        return scan( base, new String[] { path.substring( separator + 1 ) } );
+    }
+
+    private static boolean isPattern( String path )
+    {
+        return firstWildcard( path ) < path.length();
+    }
+
+    private static int firstWildcard( String path )
+    {
+        for ( int i = 0; i < path.length(); i++ )
+        {
+            char c = path.charAt( i );
+            if ( c == '*' || c == '?' )
+            {
+                return i;
+            }
+        }
+        return path.length();
+    }
+
+    private static List<File> scan( File base, final String[] includes )
+        throws IOException
+    {
+        final Path root = base.toPath();
+        final List<String> matches = new ArrayList<String>();
+        Files.walkFileTree( root, new SimpleFileVisitor<Path>()
+        {
+            public FileVisitResult preVisitDirectory( Path directory, BasicFileAttributes attributes )
+            {
+                if ( directory.equals( root ) || couldMatchBelow( root.relativize( directory ).toString() ) )
+                {
+                    return FileVisitResult.CONTINUE;
+                }
+                return FileVisitResult.SKIP_SUBTREE;
+            }
+
+            public FileVisitResult visitFile( Path file, BasicFileAttributes attributes )
+            {
+                String relative = root.relativize( file ).toString().replace( File.separatorChar, '/' );
+                if ( attributes.isRegularFile() && matches( relative ) )
+                {
+                    matches.add( relative );
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            private boolean couldMatchBelow( String directory )
+            {
+                for ( String include : includes )
+                {
+                    if ( SelectorUtils.matchPatternStart( include.replace( '/', File.separatorChar ), directory ) )
+                    {
+                        return true;
+                    }
+                }
+                return false;
+            }
+
+            private boolean matches( String relative )
+            {
+                for ( String include : includes )
+                {
+                    if ( SelectorUtils.matchPath( include, relative, "/", true ) )
+                    {
+                        return true;
+                    }
+                }
+                return false;
+            }
+        } );
+
+        Collections.sort( matches );
+        List<File> files = new ArrayList<File>( matches.size() );
+        for ( String match : matches )
+        {
+            files.add( new File( base, match ) );
+        }
+        return files;
+    }
+}
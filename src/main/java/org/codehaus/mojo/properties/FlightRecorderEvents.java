@@ -0,0 +1,166 @@
+package org.codehaus.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The flight recorder events, only loaded by {@link PluginEvents} on JVMs that include the flight recorder.
+ */
+final class FlightRecorderEvents
+{
+    private FlightRecorderEvents()
+    {
+    }
+
+    private static Object begin( Event event )
+    {
+        if ( !event.isEnabled() )
+        {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    static Object beginLoad()
+    {
+        return begin( new LoadEvent() );
+    }
+
+    static void commitLoad( Object event, String resource, long bytes )
+    {
+        LoadEvent load = (LoadEvent) event;
+        load.resource = resource;
+        load.bytes = bytes;
+        load.commit();
+    }
+
+    static Object beginFetch()
+    {
+        return begin( new FetchEvent() );
+    }
+
+    static void commitFetch( Object event, String url, long bytes, int attempts )
+    {
+        FetchEvent fetch = (FetchEvent) event;
+        fetch.url = url;
+        fetch.bytes = bytes;
+        fetch.attempts = attempts;
+        fetch.commit();
+    }
+
+    static Object beginResolve()
+    {
+        return begin( new ResolveEvent() );
+    }
+
+    static void commitResolve( Object event, int keys, int expansions )
+    {
+        ResolveEvent resolve = (ResolveEvent) event;
+        resolve.keys = keys;
+        resolve.expansions = expansions;
+        resolve.commit();
+    }
+
+    static Object beginWrite()
+    {
+        return begin( new WriteEvent() );
+    }
+
+    static void commitWrite( Object event, String file, int keys, int files )
+    {
+        WriteEvent write = (WriteEvent) event;
+        write.file = file;
+        write.keys = keys;
+        write.files = files;
+        write.commit();
+    }
+
+    @Name( "org.codehaus.mojo.properties.Load" )
+    @Label( "Load Properties" )
+    @Description( "Properties read from a file, URL or archive entry" )
+    @Category( { "Maven", "Properties" } )
+    static class LoadEvent
+        extends Event
+    {
+        @Label( "Resource" )
+        String resource;
+
+        @Label( "Bytes" )
+        @DataAmount
+        long bytes;
+    }
+
+    @Name( "org.codehaus.mojo.properties.Fetch" )
+    @Label( "Fetch URL" )
+    @Description( "A URL fetched over the network, including retries" )
+    @Category( { "Maven", "Properties" } )
+    static class FetchEvent
+        extends Event
+    {
+        @Label( "URL" )
+        String url;
+
+        @Label( "Bytes" )
+        @DataAmount
+        long bytes;
+
+        @Label( "Attempts" )
+        int attempts;
+    }
+
+    @Name( "org.codehaus.mojo.properties.Resolve" )
+    @Label( "Resolve Properties" )
+    @Description( "Placeholders of the session properties expanded" )
+    @Category( { "Maven", "Properties" } )
+    static class ResolveEvent
+        extends Event
+    {
+        @Label( "Keys" )
+        int keys;
+
+        @Label( "Expansions" )
+        int expansions;
+    }
+
+    @Name( "org.codehaus.mojo.properties.Write" )
+    @Label( "Write Properties" )
+    @Description( "Properties written to one or more files" )
+    @Category( { "Maven", "Properties" } )
+    static class WriteEvent
+        extends Event
+    {
+        @Label( "File" )
+        String file;
+
+        @Label( "Keys" )
+        int keys;
+
+        @Label( "Files" )
+        int files;
+    }
+}
@@ -0,0 +1,118 @@
+package org.codehaus.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Properties;
+import java.util.TreeSet;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * Generates a Java class from the project properties, with a constant per property and a <code>get(String)</code>
+ * method that looks values up through a minimal perfect hash, so code can read the properties at runtime without
+ * loading or parsing a file. System properties take precedence as for <code>write-project-properties</code>, and the
+ * output directory is added to the compile source roots of the project.
+ */
+@Mojo( name = "generate-properties-class", defaultPhase = LifecyclePhase.GENERATE_SOURCES, threadSafe = true )
+public class GeneratePropertiesClassMojo
+    extends AbstractMojo
+{
+    /**
+     * The most properties a class can hold before the generated code exceeds the limits of the class file format.
+     */
+    static final int MAX_PROPERTIES = 10000;
+
+    @Parameter( defaultValue = "${project}", readonly = true, required = true )
+    private MavenProject project;
+
+    /**
+     * The fully qualified name of the class to generate.
+     */
+    @Parameter( required = true )
+    private String className;
+
+    /**
+     * The directory the source file is written to.
+     */
+    @Parameter( defaultValue = "${project.build.directory}/generated-sources/properties", required = true )
+    private File outputDirectory;
+
+    /** {@inheritDoc} */
+    public void execute()
+        throws MojoExecutionException
+    {
+        Properties properties = WriteProjectProperties.projectProperties( project );
+        if ( properties.size() > MAX_PROPERTIES )
+        {
+            throw new MojoExecutionException( "Cannot generate " + className + " with " + properties.size()
+                + " properties, at most " + MAX_PROPERTIES + " are supported" );
+        }
+
+        File file = new File( outputDirectory, className.replace( '.', File.separatorChar ) + ".java" );
+        file.getParentFile().mkdirs();
+        PropertyWriter writer = null;
+        try
+        {
+            writer = PropertyWriter.openLookupClass( file, className );
+            for ( String key : new TreeSet<String>( properties.stringPropertyNames() ) )
+            {
+                writer.write( key, properties.getProperty( key ) );
+            }
+            writer.finish();
+            writer = null;
+        }
+        catch ( IOException e )
+        {
+            throw new MojoExecutionException( "Error generating " + file, e );
+        }
+        finally
+        {
+            if ( writer != null )
+            {
+                writer.abort();
+            }
+        }
+        getLog().debug( "Generated " + file + " with " + properties.size() + " properties" );
+
+        project.addCompileSourceRoot( outputDirectory.getAbsolutePath() );
+    }
+
+    /**
+     * Default scope for test access.
+     *
+     * @param project The project.
+     * @param className The class to generate.
+     * @param outputDirectory The source directory.
+     */
+    void setTarget( MavenProject project, String className, File outputDirectory )
+    {
+        this.project = project;
+        this.className = className;
+        this.outputDirectory = outputDirectory;
+    }
+}
@@ -0,0 +1,333 @@
+package org.codehaus.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+
+/**
+ * Reads a JSON document as a stream of tokens and flattens it into properties as it goes, without building a tree.
+ * Nested objects become dotted keys and array elements get an index suffix, so
+ * <code>{"db": {"hosts": ["a", "b"]}}</code> becomes <code>db.hosts[0]=a</code> and <code>db.hosts[1]=b</code>.
+ * Scalars keep their textual form and <code>null</code> becomes an empty value.
+ */
+class JsonFlattener
+{
+    private final Reader reader;
+
+    private final Properties target;
+
+    private final StringBuilder path = new StringBuilder();
+
+    private int peeked = -2;
+
+    private int line = 1;
+
+    private JsonFlattener( Reader reader, Properties target )
+    {
+        this.reader = reader;
+        this.target = target;
+    }
+
+    /**
+     * @param stream The UTF-8 encoded document, which must be an object.
+     * @param target The properties to add the flattened values to.
+     * @throws IOException If the stream could not be read or is not valid JSON.
+     */
+    static void load( InputStream stream, Properties target )
+        throws IOException
+    {
+        Reader reader = new BufferedReader( new InputStreamReader( stream, StandardCharsets.UTF_8 ) );
+        JsonFlattener flattener = new JsonFlattener( reader, target );
+        flattener.skipWhitespace();
+        if ( flattener.peek() != '{' )
+        {
+            throw flattener.error( "expected an object" );
+        }
+        flattener.value();
+        flattener.skipWhitespace();
+        if ( flattener.peek() != -1 )
+        {
+            throw flattener.error( "unexpected content after the document" );
+        }
+    }
+
+    private void value()
+        throws IOException
+    {
+        skipWhitespace();
+        int c = peek();
+        switch ( c )
+        {
+            case '{':
+                object();
+                break;
+            case '[':
+                array();
+                break;
+            case '"':
+                put( string() );
+                break;
+            case 't':
+                literal( "true" );
+                put( "true" );
+                break;
+            case 'f':
+                literal( "false" );
+                put( "false" );
+                break;
+            case 'n':
+                literal( "null" );
+                put( "" );
+                break;
+            default:
+                if ( c == '-' || ( c >= '0' && c <= '9' ) )
+                {
+                    put( number() );
+                }
+                else
+                {
+                    throw error( "unexpected " + describe( c ) );
+                }
+        }
+    }
+
+    private void object()
+        throws IOException
+    {
+        expect( '{' );
+        skipWhitespace();
+        if ( peek() == '}' )
+        {
+            read();
+            return;
+        }
+        int parent = path.length();
+        do
+        {
+            skipWhitespace();
+            if ( peek() != '"' )
+            {
+                throw error( "expected a key but found " + describe( peek() ) );
+            }
+            String key = string();
+            skipWhitespace();
+            expect( ':' );
+            if ( parent > 0 )
+            {
+                path.append( '.' );
+            }
+            path.append( key );
+            value();
+            path.setLength( parent );
+            skipWhitespace();
+        }
+        while ( next( ',', '}' ) );
+    }
+
+    private void array()
+        throws IOException
+    {
+        expect( '[' );
+        skipWhitespace();
+        if ( peek() == ']' )
+        {
+            read();
+            return;
+        }
+        int parent = path.length();
+        int index = 0;
+        do
+        {
+            path.append( '[' ).append( index++ ).append( ']' );
+            value();
+            path.setLength( parent );
+            skipWhitespace();
+        }
+        while ( next( ',', ']' ) );
+    }
+
+    /**
+     * @return <code>true</code> if the separator was read, <code>false</code> if the end was read.
+     */
+    private boolean next( char separator, char end )
+        throws IOException
+    {
+        int c = read();
+        if ( c == separator )
+        {
+            return true;
+        }
+        if ( c == end )
+        {
+            return false;
+        }
+        throw error( "expected '" + separator + "' or '" + end + "' but found " + describe( c ) );
+    }
+
+    private String string()
+        throws IOException
+    {
+        expect( '"' );
+        StringBuilder value = new StringBuilder();
+        for ( int c = read(); c != '"'; c = read() )
+        {
+            if ( c == -1 || c == '\n' )
+            {
+                throw error( "unterminated string" );
+            }
+            if ( c == '\\' )
+            {
+                c = read();
+                switch ( c )
+                {
+                    case '"':
+                    case '\\':
+                    case '/':
+                        break;
+                    case 'b':
+                        c = '\b';
+                        break;
+                    case 'f':
+                        c = '\f';
+                        break;
+                    case 'n':
+                        c = '\n';
+                        break;
+                    case 'r':
+                        c = '\r';
+                        break;
+                    case 't':
+                        c = '\t';
+                        break;
+                    case 'u':
+                        c = unicodeEscape();
+                        break;
+                    default:
+                        throw error( "invalid escape " + describe( c ) );
+                }
+            }
+            value.append( (char) c );
+        }
+        return value.toString();
+    }
+
+    private int unicodeEscape()
+        throws IOException
+    {
+        int c = 0;
+        for ( int i = 0; i < 4; i++ )
+        {
+            int digit = Character.digit( read(), 16 );
+            if ( digit < 0 )
+            {
+                throw error( "invalid unicode escape" );
+            }
+            c = ( c << 4 ) | digit;
+        }
+        return c;
+    }
+
+    private String number()
+        throws IOException
+    {
+        StringBuilder value = new StringBuilder();
+        for ( int c = peek(); ( c >= '0' && c <= '9' ) || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E';
+              c = peek() )
+        {
+            value.append( (char) read() );
+        }
+        return value.toString();
+    }
+
+    private void literal( String literal )
+        throws IOException
+    {
+        for ( int i = 0; i < literal.length(); i++ )
+        {
+            if ( read() != literal.charAt( i ) )
+            {
+                throw error( "expected " + literal );
+            }
+        }
+    }
+
+    private void put( String value )
+    {
+        target.setProperty( path.toString(), value );
+    }
+
+    private void expect( char expected )
+        throws IOException
+    {
+        int c = read();
+        if ( c != expected )
+        {
+            throw error( "expected '" + expected + "' but found " + describe( c ) );
+        }
+    }
+
+    private void skipWhitespace()
+        throws IOException
+    {
+        for ( int c = peek(); c == ' ' || c == '\t' || c == '\n' || c == '\r'; c = peek() )
+        {
+            read();
+        }
+    }
+
+    private int peek()
+        throws IOException
+    {
+        if ( peeked == -2 )
+        {
+            peeked = reader.read();
+        }
+        return peeked;
+    }
+
+    private int read()
+        throws IOException
+    {
+        int c = peek();
+        peeked = -2;
+        if ( c == '\n' )
+        {
+            line++;
+        }
+        return c;
+    }
+
+    private static String describe( int c )
+    {
+        return c == -1 ? "end of input" : "'" + (char) c + "'";
+    }
+
+    private IOException error( String message )
+    {
+        return new IOException( "Invalid JSON at line " + line + ": " + message );
+    }
+}
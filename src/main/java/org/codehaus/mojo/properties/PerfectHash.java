@@ -0,0 +1,187 @@
+package org.codehaus.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Builds a minimal perfect hash over a set of keys using hash and displace: keys are first grouped into buckets, then
+ * the buckets, largest first, are each given the smallest seed that moves all of their keys to free slots. A lookup
+ * hashes once to find the bucket and once more with its seed to find the only slot the key can be in.
+ */
+final class PerfectHash
+{
+    /**
+     * The source of {@link #hash(String, int)}, which generated lookups must compute identically.
+     */
+    static final String HASH_SOURCE = "    private static int hash( String key, int seed )\n"
+        + "    {\n"
+        + "        int h = seed * 0x9E3779B9 ^ 0x811C9DC5;\n"
+        + "        for ( int i = 0; i < key.length(); i++ )\n"
+        + "        {\n"
+        + "            h = ( h ^ key.charAt( i ) ) * 0x01000193;\n"
+        + "        }\n"
+        + "        h ^= h >>> 16;\n"
+        + "        h *= 0x85EBCA6B;\n"
+        + "        h ^= h >>> 13;\n"
+        + "        h *= 0xC2B2AE35;\n"
+        + "        h ^= h >>> 16;\n"
+        + "        return h & 0x7FFFFFFF;\n"
+        + "    }\n";
+
+    private static final int MAX_SEED = 1 << 24;
+
+    private final int[] seeds;
+
+    private final int[] slots;
+
+    private PerfectHash( int[] seeds, int[] slots )
+    {
+        this.seeds = seeds;
+        this.slots = slots;
+    }
+
+    /**
+     * @param keys Distinct keys.
+     * @return The hash, with one slot per key.
+     */
+    static PerfectHash build( List<String> keys )
+    {
+        int size = keys.size();
+        final List<List<Integer>> buckets = new ArrayList<List<Integer>>();
+        for ( int i = size / 2 + 1; i > 0; i-- )
+        {
+            buckets.add( new ArrayList<Integer>( 2 ) );
+        }
+        for ( int i = 0; i < size; i++ )
+        {
+            buckets.get( hash( keys.get( i ), 0 ) % buckets.size() ).add( i );
+        }
+        Integer[] order = new Integer[buckets.size()];
+        for ( int i = 0; i < order.length; i++ )
+        {
+            order[i] = i;
+        }
+        Arrays.sort( order, new Comparator<Integer>()
+        {
+            public int compare( Integer a, Integer b )
+            {
+                return buckets.get( b ).size() - buckets.get( a ).size();
+            }
+        } );
+
+        int[] seeds = new int[buckets.size()];
+        int[] slots = new int[size];
+        Arrays.fill( slots, -1 );
+        int[] candidate = new int[0];
+        for ( Integer bucket : order )
+        {
+            List<Integer> members = buckets.get( bucket );
+            if ( members.isEmpty() )
+            {
+                break;
+            }
+            if ( candidate.length < members.size() )
+            {
+                candidate = new int[members.size()];
+            }
+            int seed = 1;
+            while ( !place( keys, members, seed, slots, candidate ) )
+            {
+                if ( ++seed == MAX_SEED )
+                {
+                    throw new IllegalStateException( "No perfect hash found for " + members.size() + " keys" );
+                }
+            }
+            seeds[bucket] = seed;
+        }
+        return new PerfectHash( seeds, slots );
+    }
+
+    private static boolean place( List<String> keys, List<Integer> members, int seed, int[] slots, int[] candidate )
+    {
+        int count = 0;
+        for ( Integer member : members )
+        {
+            int slot = hash( keys.get( member ), seed ) % slots.length;
+            if ( slots[slot] >= 0 )
+            {
+                return false;
+            }
+            for ( int i = 0; i < count; i++ )
+            {
+                if ( candidate[i] == slot )
+                {
+                    return false;
+                }
+            }
+            candidate[count++] = slot;
+        }
+        for ( int i = 0; i < count; i++ )
+        {
+            slots[candidate[i]] = members.get( i );
+        }
+        return true;
+    }
+
+    /**
+     * @return The seed of each bucket.
+     */
+    int[] getSeeds()
+    {
+        return seeds;
+    }
+
+    /**
+     * @return The index of the key in each slot.
+     */
+    int[] getSlots()
+    {
+        return slots;
+    }
+
+    /**
+     * @param key The key.
+     * @return The slot the key is in, if it is one of the keys the hash was built for.
+     */
+    int slot( String key )
+    {
+        return hash( key, seeds[hash( key, 0 ) % seeds.length] ) % slots.length;
+    }
+
+    static int hash( String key, int seed )
+    {
+        int h = seed * 0x9E3779B9 ^ 0x811C9DC5;
+        for ( int i = 0; i < key.length(); i++ )
+        {
+            h = ( h ^ key.charAt( i ) ) * 0x01000193;
+        }
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h & 0x7FFFFFFF;
+    }
+}
@@ -0,0 +1,109 @@
+package org.codehaus.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Marks which properties contain placeholders, and which of them refer to environment variables, in a single scan of
+ * the values. Resolution only has to visit the marked keys, as resolving a value without placeholders leaves it
+ * unchanged, and the environment only has to be queried if a value refers to it.
+ * <p>
+ * Only references to environment variables are marked, as loading the environment is the only lookup worth skipping
+ * up front. Project and system properties are plain map reads made while resolving, and {@link ResolutionCache}
+ * records every lookup outside of the session properties with its value, whichever namespace it came from.
+ */
+final class PlaceholderIndex
+{
+    private final List<String> keys;
+
+    private final BitSet placeholders;
+
+    private final BitSet environment;
+
+    private PlaceholderIndex( List<String> keys, BitSet placeholders, BitSet environment )
+    {
+        this.keys = keys;
+        this.placeholders = placeholders;
+        this.environment = environment;
+    }
+
+    /**
+     * @param properties The properties to scan.
+     * @param syntax The delimiters of placeholders.
+     * @return The index of the properties, in their enumeration order.
+     */
+    static PlaceholderIndex scan( Properties properties, PlaceholderSyntax syntax )
+    {
+        List<String> keys = new ArrayList<String>();
+        BitSet placeholders = new BitSet();
+        BitSet environment = new BitSet();
+        for ( Enumeration<?> n = properties.propertyNames(); n.hasMoreElements(); )
+        {
+            String key = (String) n.nextElement();
+            String value = properties.getProperty( key );
+            if ( syntax.containsPlaceholder( value ) )
+            {
+                placeholders.set( keys.size() );
+            }
+            // an unterminated reference can still be completed by the value of another placeholder
+            if ( syntax.refersToEnvironment( value ) )
+            {
+                environment.set( keys.size() );
+            }
+            keys.add( key );
+        }
+        return new PlaceholderIndex( keys, placeholders, environment );
+    }
+
+    /**
+     * @return The keys whose values contain placeholders, in enumeration order.
+     */
+    List<String> keysWithPlaceholders()
+    {
+        List<String> result = new ArrayList<String>( placeholders.cardinality() );
+        for ( int id = placeholders.nextSetBit( 0 ); id >= 0; id = placeholders.nextSetBit( id + 1 ) )
+        {
+            result.add( keys.get( id ) );
+        }
+        return result;
+    }
+
+    /**
+     * @return <code>true</code> if any value refers to an environment variable.
+     */
+    boolean usesEnvironment()
+    {
+        return !environment.isEmpty();
+    }
+
+    /**
+     * @return The number of properties scanned.
+     */
+    int size()
+    {
+        return keys.size();
+    }
+}
@@ -0,0 +1,349 @@
+package org.codehaus.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The delimiters placeholders are recognized by, such as <code>${*}</code>, <code>#{*}</code> or <code>@</code> for
+ * <code>@key@</code>. The start delimiters are compiled into a single Aho-Corasick automaton, so a value is scanned
+ * once for all of them. A placeholder is the earliest start delimiter that is followed by its end delimiter, the
+ * longest one if several start at the same position.
+ */
+final class PlaceholderSyntax
+{
+    /**
+     * The <code>${key}</code> syntax, which is the only syntax unless others are configured.
+     */
+    static final PlaceholderSyntax DEFAULT = compile( "${*}" );
+
+    private static final String ENVIRONMENT_PREFIX = "env.";
+
+    private static final int NOT_SEARCHED = -2;
+
+    private final String[] delimiters;
+
+    private final String[] starts;
+
+    private final String[] ends;
+
+    private final int longestStart;
+
+    // the automaton: per state the sorted characters it has transitions for, their targets, the state to fall back
+    // to, the delimiter that ends in the state (or -1) and the next state on the fallback chain that ends a delimiter
+    private final char[][] labels;
+
+    private final int[][] targets;
+
+    private final int[] fallback;
+
+    private final int[] accepts;
+
+    private final int[] nextAccepting;
+
+    private PlaceholderSyntax( String[] delimiters, String[] starts, String[] ends )
+    {
+        this.delimiters = delimiters;
+        this.starts = starts;
+        this.ends = ends;
+
+        List<StringBuilder> stateLabels = new ArrayList<StringBuilder>();
+        List<List<Integer>> stateTargets = new ArrayList<List<Integer>>();
+        List<Integer> stateAccepts = new ArrayList<Integer>();
+        stateLabels.add( new StringBuilder() );
+        stateTargets.add( new ArrayList<Integer>() );
+        stateAccepts.add( -1 );
+        int longest = 0;
+        for ( int i = 0; i < starts.length; i++ )
+        {
+            longest = Math.max( longest, starts[i].length() );
+            int state = 0;
+            for ( char c : starts[i].toCharArray() )
+            {
+                int label = stateLabels.get( state ).indexOf( String.valueOf( c ) );
+                if ( label >= 0 )
+                {
+                    state = stateTargets.get( state ).get( label );
+                }
+                else
+                {
+                    stateLabels.get( state ).append( c );
+                    stateTargets.get( state ).add( stateLabels.size() );
+                    state = stateLabels.size();
+                    stateLabels.add( new StringBuilder() );
+                    stateTargets.add( new ArrayList<Integer>() );
+                    stateAccepts.add( -1 );
+                }
+            }
+            if ( stateAccepts.get( state ) < 0 )
+            {
+                stateAccepts.set( state, i );
+            }
+        }
+        this.longestStart = longest;
+
+        int count = stateLabels.size();
+        labels = new char[count][];
+        targets = new int[count][];
+        accepts = new int[count];
+        for ( int state = 0; state < count; state++ )
+        {
+            char[] chars = stateLabels.get( state ).toString().toCharArray();
+            int[] order = sortedOrder( chars );
+            labels[state] = new char[chars.length];
+            targets[state] = new int[chars.length];
+            for ( int i = 0; i < order.length; i++ )
+            {
+                labels[state][i] = chars[order[i]];
+                targets[state][i] = stateTargets.get( state ).get( order[i] );
+            }
+            accepts[state] = stateAccepts.get( state );
+        }
+
+        // breadth first, so the fallback of a state is known before the states below it
+        fallback = new int[count];
+        nextAccepting = new int[count];
+        Arrays.fill( nextAccepting, -1 );
+        int[] queue = new int[count];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = 0;
+        while ( head < tail )
+        {
+            int state = queue[head++];
+            for ( int i = 0; i < labels[state].length; i++ )
+            {
+                int target = targets[state][i];
+                int back = state == 0 ? 0 : step( fallback[state], labels[state][i] );
+                fallback[target] = back;
+                nextAccepting[target] = accepts[back] >= 0 ? back : nextAccepting[back];
+                queue[tail++] = target;
+            }
+        }
+    }
+
+    private static int[] sortedOrder( final char[] chars )
+    {
+        Integer[] order = new Integer[chars.length];
+        for ( int i = 0; i < order.length; i++ )
+        {
+            order[i] = i;
+        }
+        Arrays.sort( order, new Comparator<Integer>()
+        {
+            public int compare( Integer a, Integer b )
+            {
+                return chars[a] - chars[b];
+            }
+        } );
+        int[] result = new int[order.length];
+        for ( int i = 0; i < order.length; i++ )
+        {
+            result[i] = order[i];
+        }
+        return result;
+    }
+
+    /**
+     * @param delimiters Delimiters such as <code>${*}</code>, where <code>*</code> separates the start from the end
+     *            delimiter, or <code>@</code> for the same start and end delimiter.
+     * @return The syntax recognizing all of the delimiters.
+     * @throws IllegalArgumentException If a delimiter is empty.
+     */
+    static PlaceholderSyntax compile( String... delimiters )
+    {
+        if ( delimiters.length == 0 )
+        {
+            throw new IllegalArgumentException( "At least one placeholder delimiter is required" );
+        }
+        String[] starts = new String[delimiters.length];
+        String[] ends = new String[delimiters.length];
+        for ( int i = 0; i < delimiters.length; i++ )
+        {
+            String delimiter = delimiters[i] != null ? delimiters[i].trim() : "";
+            int separator = delimiter.indexOf( '*' );
+            starts[i] = separator < 0 ? delimiter : delimiter.substring( 0, separator );
+            ends[i] = separator < 0 ? delimiter : delimiter.substring( separator + 1 );
+            if ( starts[i].isEmpty() || ends[i].isEmpty() )
+            {
+                throw new IllegalArgumentException( "Invalid placeholder delimiter '" + delimiters[i]
+                    + "', expected a start and end delimiter such as ${*} or a single delimiter such as @" );
+            }
+        }
+        return new PlaceholderSyntax( delimiters.clone(), starts, ends );
+    }
+
+    private int step( int state, char c )
+    {
+        while ( true )
+        {
+            int label = Arrays.binarySearch( labels[state], c );
+            if ( label >= 0 )
+            {
+                return targets[state][label];
+            }
+            if ( state == 0 )
+            {
+                return 0;
+            }
+            state = fallback[state];
+        }
+    }
+
+    /**
+     * @param value The value to search.
+     * @param from The index to start searching at.
+     * @return The first placeholder at or after the index, or <code>null</code> if there is none.
+     */
+    Match find( String value, int from )
+    {
+        Match best = null;
+        // per delimiter the end found by the last search, so a value with many starts is not searched over and over
+        int[] foundEnds = null;
+        int state = 0;
+        for ( int i = from; i < value.length(); i++ )
+        {
+            if ( best != null && i >= best.start + longestStart )
+            {
+                // no delimiter found from here on can start before the best one
+                break;
+            }
+            state = step( state, value.charAt( i ) );
+            for ( int s = accepts[state] >= 0 ? state : nextAccepting[state]; s >= 0; s = nextAccepting[s] )
+            {
+                int delimiter = accepts[s];
+                int start = i + 1 - starts[delimiter].length();
+                if ( best != null && start > best.start )
+                {
+                    continue;
+                }
+                if ( foundEnds == null )
+                {
+                    foundEnds = new int[ends.length];
+                    Arrays.fill( foundEnds, NOT_SEARCHED );
+                }
+                int end = foundEnds[delimiter];
+                if ( end == NOT_SEARCHED || ( end >= 0 && end < i + 1 ) )
+                {
+                    // no end after an earlier position means none after this one either
+                    end = value.indexOf( ends[delimiter], i + 1 );
+                    foundEnds[delimiter] = end;
+                }
+                if ( end >= 0 )
+                {
+                    best = new Match( delimiter, start, i + 1, end, end + ends[delimiter].length() );
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @param value A value, may be <code>null</code>.
+     * @return <code>true</code> if resolving the value could change it.
+     */
+    boolean containsPlaceholder( String value )
+    {
+        return value != null && find( value, 0 ) != null;
+    }
+
+    /**
+     * The test the resolver has always used to tell that a value is resolved, which only looks for the first start and
+     * the first end delimiter anywhere in the value. For a delimiter that starts and ends placeholders alike, such as
+     * <code>@</code>, the end is looked for after the start, since both would otherwise be found at the same position.
+     *
+     * @param value A value.
+     * @return <code>true</code> if the value does not look like it contains a placeholder of any of the delimiters.
+     */
+    boolean looksResolved( String value )
+    {
+        for ( int i = 0; i < starts.length; i++ )
+        {
+            int prefixPos = value.indexOf( starts[i] );
+            int suffixPos = starts[i].equals( ends[i] ) && prefixPos >= 0
+                ? value.indexOf( ends[i], prefixPos + starts[i].length() ) : value.indexOf( ends[i] );
+            if ( prefixPos >= 0 && suffixPos > prefixPos )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param value A value.
+     * @return <code>true</code> if the value contains the start of a placeholder for an environment variable.
+     */
+    boolean refersToEnvironment( String value )
+    {
+        for ( String start : starts )
+        {
+            if ( value.contains( start + ENVIRONMENT_PREFIX ) )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param delimiter The index of the delimiter of a match.
+     * @param key The key of the placeholder.
+     * @return The placeholder as it was written.
+     */
+    String placeholder( int delimiter, String key )
+    {
+        return starts[delimiter] + key + ends[delimiter];
+    }
+
+    public String toString()
+    {
+        return Arrays.toString( delimiters );
+    }
+
+    /**
+     * A placeholder found in a value.
+     */
+    static final class Match
+    {
+        final int delimiter;
+
+        final int start;
+
+        final int keyStart;
+
+        final int keyEnd;
+
+        final int end;
+
+        private Match( int delimiter, int start, int keyStart, int keyEnd, int end )
+        {
+            this.delimiter = delimiter;
+            this.start = start;
+            this.keyStart = keyStart;
+            this.keyEnd = keyEnd;
+            this.end = end;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package org.codehaus.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+/**
+ * Emits Java Flight Recorder events for loading, fetching, resolving and writing properties, so the time spent by the
+ * plugin can be correlated with garbage collection and I/O in a recording of the whole build. The events are only
+ * created on JVMs that include the flight recorder and cost no more than a flag check while no recording has them
+ * enabled. A <code>begin</code> method returns the started event, or <code>null</code> if it is not recorded, which
+ * is passed to the matching <code>commit</code> method.
+ */
+final class PluginEvents
+{
+    private static final boolean AVAILABLE = isAvailable();
+
+    private PluginEvents()
+    {
+    }
+
+    /**
+     * @return <code>true</code> if the JVM includes the flight recorder.
+     */
+    static boolean isAvailable()
+    {
+        try
+        {
+            Class.forName( "jdk.jfr.Event" );
+            return true;
+        }
+        catch ( ClassNotFoundException e )
+        {
+            return false;
+        }
+        catch ( LinkageError e )
+        {
+            return false;
+        }
+    }
+
+    static Object beginLoad()
+    {
+        return AVAILABLE ? FlightRecorderEvents.beginLoad() : null;
+    }
+
+    /**
+     * @param event The event returned by {@link #beginLoad()}.
+     * @param resource The resource that was loaded.
+     * @param bytes The number of bytes read, after decompression.
+     */
+    static void commitLoad( Object event, String resource, long bytes )
+    {
+        if ( event != null )
+        {
+            FlightRecorderEvents.commitLoad( event, resource, bytes );
+        }
+    }
+
+    static Object beginFetch()
+    {
+        return AVAILABLE ? FlightRecorderEvents.beginFetch() : null;
+    }
+
+    /**
+     * @param event The event returned by {@link #beginFetch()}.
+     * @param url The URL that was fetched.
+     * @param bytes The number of bytes received, <code>-1</code> if fetching failed.
+     * @param attempts The number of attempts made.
+     */
+    static void commitFetch( Object event, String url, long bytes, int attempts )
+    {
+        if ( event != null )
+        {
+            FlightRecorderEvents.commitFetch( event, url, bytes, attempts );
+        }
+    }
+
+    static Object beginResolve()
+    {
+        return AVAILABLE ? FlightRecorderEvents.beginResolve() : null;
+    }
+
+    /**
+     * @param event The event returned by {@link #beginResolve()}.
+     * @param keys The number of properties.
+     * @param expansions The number of properties that were expanded.
+     */
+    static void commitResolve( Object event, int keys, int expansions )
+    {
+        if ( event != null )
+        {
+            FlightRecorderEvents.commitResolve( event, keys, expansions );
+        }
+    }
+
+    static Object beginWrite()
+    {
+        return AVAILABLE ? FlightRecorderEvents.beginWrite() : null;
+    }
+
+    /**
+     * @param event The event returned by {@link #beginWrite()}.
+     * @param file The file, or the first of the files, that was written.
+     * @param keys The number of properties written.
+     * @param files The number of files written.
+     */
+    static void commitWrite( Object event, String file, int keys, int files )
+    {
+        if ( event != null )
+        {
+            FlightRecorderEvents.commitWrite( event, file, keys, files );
+        }
+    }
+}
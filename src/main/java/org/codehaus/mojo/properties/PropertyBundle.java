@@ -0,0 +1,249 @@
+package org.codehaus.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * A precompiled set of properties. Values are stored already unescaped, so reading a bundle needs neither text parsing
+ * nor escape decoding, and single keys are found by binary search without decoding the rest. Bundles are read into
+ * the heap in one piece rather than memory mapped, as a mapping would keep the file locked on Windows until it is
+ * garbage collected, and a later <code>compile-properties</code> in the same JVM could not overwrite it.
+ * <p>
+ * The layout is a header (magic, version, count), an index of <code>count</code> entries of key offset, key length,
+ * value offset and value length sorted by key, and a table of the UTF-8 encoded strings the offsets point into. All
+ * numbers are big endian <code>int</code>s.
+ */
+final class PropertyBundle
+{
+    /**
+     * The file extension of bundles.
+     */
+    static final String EXTENSION = ".pbundle";
+
+    private static final int MAGIC = 0x504D5042;
+
+    private static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 12;
+
+    private static final int INDEX_ENTRY_SIZE = 16;
+
+    private final byte[] bytes;
+
+    private final ByteBuffer buffer;
+
+    private final int count;
+
+    private final int stringsStart;
+
+    private final String source;
+
+    private PropertyBundle( byte[] bytes, String source )
+        throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.wrap( bytes );
+        if ( buffer.limit() < HEADER_SIZE || buffer.getInt( 0 ) != MAGIC )
+        {
+            throw new IOException( source + " is not a property bundle" );
+        }
+        if ( buffer.getInt( 4 ) != VERSION )
+        {
+            throw new IOException( source + " has unsupported bundle version " + buffer.getInt( 4 ) );
+        }
+        int count = buffer.getInt( 8 );
+        if ( count < 0 || HEADER_SIZE + (long) count * INDEX_ENTRY_SIZE > buffer.limit() )
+        {
+            throw new IOException( source + " is truncated or corrupt, its index of " + count
+                + " entries does not fit into " + buffer.limit() + " bytes" );
+        }
+        this.bytes = bytes;
+        this.buffer = buffer;
+        this.count = count;
+        this.stringsStart = HEADER_SIZE + count * INDEX_ENTRY_SIZE;
+        this.source = source;
+    }
+
+    /**
+     * @param file A file.
+     * @return <code>true</code> if the file is named like a bundle.
+     */
+    static boolean isBundle( File file )
+    {
+        return file.getName().endsWith( EXTENSION );
+    }
+
+    /**
+     * Reads a bundle into memory, the file is closed when this returns.
+     *
+     * @param file The bundle.
+     * @return The bundle.
+     * @throws IOException If the file could not be read or is no bundle.
+     */
+    static PropertyBundle open( File file )
+        throws IOException
+    {
+        return new PropertyBundle( Files.readAllBytes( file.toPath() ), file.toString() );
+    }
+
+    /**
+     * Compiles properties into a bundle.
+     *
+     * @param properties The properties.
+     * @param file The bundle to write.
+     * @throws IOException If the bundle could not be written.
+     */
+    static void write( Properties properties, File file )
+        throws IOException
+    {
+        List<String> keys = new ArrayList<String>( properties.stringPropertyNames() );
+        Collections.sort( keys );
+
+        byte[][] strings = new byte[keys.size() * 2][];
+        for ( int i = 0; i < keys.size(); i++ )
+        {
+            strings[2 * i] = keys.get( i ).getBytes( StandardCharsets.UTF_8 );
+            strings[2 * i + 1] = properties.getProperty( keys.get( i ) ).getBytes( StandardCharsets.UTF_8 );
+        }
+
+        DataOutputStream out = new DataOutputStream( new BufferedOutputStream( new FileOutputStream( file ) ) );
+        try
+        {
+            out.writeInt( MAGIC );
+            out.writeInt( VERSION );
+            out.writeInt( keys.size() );
+            int offset = 0;
+            for ( byte[] string : strings )
+            {
+                out.writeInt( offset );
+                out.writeInt( string.length );
+                offset += string.length;
+            }
+            for ( byte[] string : strings )
+            {
+                out.write( string );
+            }
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+
+    /**
+     * @return The number of properties.
+     */
+    public int size()
+    {
+        return count;
+    }
+
+    /**
+     * @param index The index, properties are sorted by key.
+     * @return The key.
+     * @throws IOException If the bundle is corrupt.
+     */
+    public String keyAt( int index )
+        throws IOException
+    {
+        return string( HEADER_SIZE + index * INDEX_ENTRY_SIZE );
+    }
+
+    /**
+     * @param index The index, properties are sorted by key.
+     * @return The value.
+     * @throws IOException If the bundle is corrupt.
+     */
+    public String valueAt( int index )
+        throws IOException
+    {
+        return string( HEADER_SIZE + index * INDEX_ENTRY_SIZE + 8 );
+    }
+
+    /**
+     * @param key The key.
+     * @return The value, or <code>null</code> if the bundle does not contain the key.
+     * @throws IOException If the bundle is corrupt.
+     */
+    public String get( String key )
+        throws IOException
+    {
+        int low = 0;
+        int high = count - 1;
+        while ( low <= high )
+        {
+            int middle = ( low + high ) >>> 1;
+            int comparison = keyAt( middle ).compareTo( key );
+            if ( comparison < 0 )
+            {
+                low = middle + 1;
+            }
+            else if ( comparison > 0 )
+            {
+                high = middle - 1;
+            }
+            else
+            {
+                return valueAt( middle );
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param target The properties to copy all properties of this bundle to.
+     * @param keyPrefix The prefix to add to each key, may be <code>null</code>.
+     * @throws IOException If the bundle is corrupt.
+     */
+    public void copyTo( Properties target, String keyPrefix )
+        throws IOException
+    {
+        for ( int i = 0; i < count; i++ )
+        {
+            String key = keyAt( i );
+            target.put( keyPrefix != null ? keyPrefix + key : key, valueAt( i ) );
+        }
+    }
+
+    private String string( int indexPosition )
+        throws IOException
+    {
+        int offset = buffer.getInt( indexPosition );
+        int length = buffer.getInt( indexPosition + 4 );
+        if ( offset < 0 || length < 0 || (long) stringsStart + offset + length > buffer.limit() )
+        {
+            throw new IOException( source + " is truncated or corrupt, a string of " + length + " bytes at offset "
+                + offset + " does not fit into " + buffer.limit() + " bytes" );
+        }
+        return new String( bytes, stringsStart + offset, length, StandardCharsets.UTF_8 );
+    }
+}
@@ -0,0 +1,90 @@
+package org.codehaus.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.io.File;
+
+/**
+ * A file the write goals export properties to, configured as
+ *
+ * <pre>
+ * &lt;output&gt;
+ *   &lt;format&gt;json&lt;/format&gt;
+ *   &lt;file&gt;${project.build.outputDirectory}/app.json&lt;/file&gt;
+ * &lt;/output&gt;
+ * </pre>
+ *
+ * The supported formats are <code>properties</code>, <code>env</code>, <code>json</code> and <code>java</code>. For
+ * <code>java</code> a <code>className</code> may be given, otherwise the class is named after the file and has no
+ * package.
+ */
+public class PropertyOutput
+{
+    private String format = "properties";
+
+    private File file;
+
+    private String className;
+
+    public PropertyOutput()
+    {
+    }
+
+    PropertyOutput( String format, File file )
+    {
+        this.format = format;
+        this.file = file;
+    }
+
+    /**
+     * @return The format.
+     */
+    public String getFormat()
+    {
+        return format;
+    }
+
+    /**
+     * @return The file to write.
+     */
+    public File getFile()
+    {
+        return file;
+    }
+
+    /**
+     * @return The fully qualified name of the class for the <code>java</code> format, may be <code>null</code>.
+     */
+    public String getClassName()
+    {
+        return className;
+    }
+
+    void setClassName( String className )
+    {
+        this.className = className;
+    }
+
+    public String toString()
+    {
+        return format + ": " + file;
+    }
+}
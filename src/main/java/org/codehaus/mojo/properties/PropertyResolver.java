@@ -19,12 +19,67 @@ package org.codehaus.mojo.properties;
  * under the License.
  */
 
+import java.util.Map;
 import java.util.Properties;
 
 import org.apache.maven.plugins.annotations.Parameter;
 
 class PropertyResolver
 {
+    private Map<String, String> externalLookups;
+
+    private Map<String, String> trace;
+
+    private PlaceholderSyntax syntax = PlaceholderSyntax.DEFAULT;
+
+    private EncryptedValues encryptedValues;
+
+    /**
+     * @param syntax The delimiters to recognize placeholders by.
+     */
+    void setSyntax( PlaceholderSyntax syntax )
+    {
+        this.syntax = syntax;
+    }
+
+    /**
+     * @return The delimiters placeholders are recognized by.
+     */
+    PlaceholderSyntax getSyntax()
+    {
+        return syntax;
+    }
+
+    /**
+     * @param encryptedValues Decrypts looked up values of the form <code>ENC(...)</code>, or <code>null</code> to
+     *            leave them as they are.
+     */
+    void setEncryptedValues( EncryptedValues encryptedValues )
+    {
+        this.encryptedValues = encryptedValues;
+    }
+
+    /**
+     * Records every placeholder that is not found in the session properties, together with the value it resolved to
+     * (possibly <code>null</code>), so that a cached result can later be checked against the same lookups.
+     *
+     * @param externalLookups The map to record to, or <code>null</code> to stop recording.
+     */
+    void recordExternalLookups( Map<String, String> externalLookups )
+    {
+        this.externalLookups = externalLookups;
+    }
+
+    /**
+     * Records every placeholder that is looked up, in order of first use, together with the value it resolved to
+     * (possibly <code>null</code>), to explain how a value was resolved.
+     *
+     * @param trace The map to record to, or <code>null</code> to stop recording.
+     */
+    void recordTrace( Map<String, String> trace )
+    {
+        this.trace = trace;
+    }
 
     /**
      * Retrieves a property value, replacing values like ${token} using the Properties to look them up. Shamelessly
@@ -45,19 +100,32 @@ class PropertyResolver
     {
         String value = properties.getProperty( key );
 
-        ExpansionBuffer buffer = new ExpansionBuffer( value );
+        ExpansionBuffer buffer = new ExpansionBuffer( value, syntax );
 
         CircularDefinitionPreventer circularDefinitionPreventer =
-            new CircularDefinitionPreventer().visited( key, value );
+            new CircularDefinitionPreventer( syntax ).visited( key, value );
 
         while ( buffer.hasMoreLegalPlaceholders() )
         {
             String newKey = buffer.extractPropertyKey();
             String newValue = fromPropertiesThenSystemThenEnvironment( newKey, properties, projectProperties, environment );
 
+            if ( trace != null && !trace.containsKey( newKey ) )
+            {
+                trace.put( newKey, newValue );
+            }
+
             circularDefinitionPreventer.visited( newKey, newValue );
 
-            buffer.add( newKey, newValue );
+            if ( encryptedValues != null && EncryptedValues.isEncrypted( newValue ) )
+            {
+                // only traced encrypted, and not searched for placeholders once decrypted
+                buffer.addLiteral( encryptedValues.decrypt( newKey, newValue ) );
+            }
+            else
+            {
+                buffer.add( newKey, newValue );
+            }
         }
 
         return buffer.toString();
@@ -67,12 +135,29 @@ class PropertyResolver
     {
         String value = properties.getProperty( key );
 
-        // try project properties
         if ( value == null )
         {
-            value = projectProperties.getProperty( key );
+            value = fromProjectThenSystemThenEnvironment( key, projectProperties, environment );
+            if ( externalLookups != null )
+            {
+                externalLookups.put( key, value );
+            }
         }
 
+        return value;
+    }
+
+    /**
+     * @param key property key
+     * @param projectProperties project properties
+     * @param environment environment variables
+     * @return the value of a placeholder that is not defined in the session properties
+     */
+    String fromProjectThenSystemThenEnvironment( String key, Properties projectProperties, Properties environment )
+    {
+        // try project properties
+        String value = projectProperties.getProperty( key );
+
         // try global environment
         if ( value == null )
         {
@@ -0,0 +1,67 @@
+package org.codehaus.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+
+import java.io.File;
+
+/**
+ * A file the write goals export the properties with a given key prefix to, configured as
+ *
+ * <pre>
+ * &lt;shard&gt;
+ *   &lt;prefix&gt;db.&lt;/prefix&gt;
+ *   &lt;file&gt;${project.build.outputDirectory}/db.properties.gz&lt;/file&gt;
+ * &lt;/shard&gt;
+ * </pre>
+ *
+ * A property belongs to the shards with the longest prefix its key starts with, so several shards with the same
+ * prefix receive the same properties, for example in different formats. Keys are written unchanged, including the
+ * prefix.
+ */
+public class PropertyShard
+    extends PropertyOutput
+{
+    private String prefix;
+
+    public PropertyShard()
+    {
+    }
+
+    PropertyShard( String prefix, String format, File file )
+    {
+        super( format, file );
+        this.prefix = prefix;
+    }
+
+    /**
+     * @return The key prefix.
+     */
+    public String getPrefix()
+    {
+        return prefix;
+    }
+
+    public String toString()
+    {
+        return prefix + "* " + super.toString();
+    }
+}
@@ -0,0 +1,589 @@
+package org.codehaus.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.io.File;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Streams properties to a file in one of the export formats. Keys must be written in a stable order for the output to
+ * be reproducible. Files ending in <code>.gz</code> are compressed while they are written.
+ */
+abstract class PropertyWriter
+{
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    protected final Writer out;
+
+    protected PropertyWriter( File file, Charset charset )
+        throws IOException
+    {
+        OutputStream stream = Files.newOutputStream( file.toPath() );
+        try
+        {
+            stream = Compression.forName( file.getName() ).compress( stream );
+        }
+        catch ( IOException e )
+        {
+            stream.close();
+            throw e;
+        }
+        this.out = new BufferedWriter( new OutputStreamWriter( stream, charset.newEncoder() ) );
+    }
+
+    /**
+     * @param output The configured output.
+     * @return A writer that has already written the start of the file.
+     * @throws IOException If the file could not be opened.
+     * @throws IllegalArgumentException If the format is not supported.
+     */
+    static PropertyWriter open( PropertyOutput output )
+        throws IOException
+    {
+        String format = output.getFormat().toLowerCase( Locale.ENGLISH );
+        PropertyWriter writer;
+        if ( "properties".equals( format ) )
+        {
+            writer = new PropertiesFormat( output.getFile(), "\n" );
+        }
+        else if ( "env".equals( format ) )
+        {
+            writer = new EnvFormat( output.getFile() );
+        }
+        else if ( "json".equals( format ) )
+        {
+            writer = new JsonFormat( output.getFile() );
+        }
+        else if ( "java".equals( format ) )
+        {
+            writer = new JavaFormat( output.getFile(), output.getClassName() );
+        }
+        else
+        {
+            throw new IllegalArgumentException( "Unsupported format " + output.getFormat() + " for "
+                + output.getFile() + ", expected properties, env, json or java" );
+        }
+        writer.start();
+        return writer;
+    }
+
+    /**
+     * @param file The properties file to write.
+     * @return A writer that writes the header and line separators of
+     *         {@link java.util.Properties#store(java.io.OutputStream, String)}, as the write goals always did for their
+     *         <code>outputFile</code>, and has already written the start of the file.
+     * @throws IOException If the file could not be opened.
+     */
+    static PropertyWriter openStoreCompatible( File file )
+        throws IOException
+    {
+        PropertyWriter writer = new PropertiesFormat( file, System.getProperty( "line.separator" ) );
+        writer.start();
+        return writer;
+    }
+
+    /**
+     * @param file The source file to write.
+     * @param className The fully qualified name of the class.
+     * @return A writer for a Java class with a constant per property and a perfect hash <code>get(String)</code> lookup,
+     *         that has already written the start of the file.
+     * @throws IOException If the file could not be opened.
+     */
+    static PropertyWriter openLookupClass( File file, String className )
+        throws IOException
+    {
+        PropertyWriter writer = new LookupFormat( file, className );
+        writer.start();
+        return writer;
+    }
+
+    protected void start()
+        throws IOException
+    {
+    }
+
+    /**
+     * @param key The key.
+     * @param value The value.
+     * @throws IOException If writing fails.
+     */
+    abstract void write( String key, String value )
+        throws IOException;
+
+    protected void end()
+        throws IOException
+    {
+    }
+
+    /**
+     * Writes the end of the file and closes it.
+     *
+     * @throws IOException If writing fails.
+     */
+    void finish()
+        throws IOException
+    {
+        end();
+        out.close();
+    }
+
+    /**
+     * Closes the file without completing it, after a failure.
+     */
+    void abort()
+    {
+        try
+        {
+            out.close();
+        }
+        catch ( IOException e )
+        {
+            // already failing
+        }
+    }
+
+    protected void unicodeEscape( char c )
+        throws IOException
+    {
+        out.write( '\\' );
+        out.write( 'u' );
+        out.write( HEX_DIGITS[( c >> 12 ) & 0xF] );
+        out.write( HEX_DIGITS[( c >> 8 ) & 0xF] );
+        out.write( HEX_DIGITS[( c >> 4 ) & 0xF] );
+        out.write( HEX_DIGITS[c & 0xF] );
+    }
+
+    /**
+     * Writes a quoted string with the escapes that JSON and Java share.
+     */
+    protected void quoted( String value )
+        throws IOException
+    {
+        out.write( '"' );
+        for ( int i = 0; i < value.length(); i++ )
+        {
+            char c = value.charAt( i );
+            switch ( c )
+            {
+                case '"':
+                    out.write( "\\\"" );
+                    break;
+                case '\\':
+                    out.write( "\\\\" );
+                    break;
+                case '\n':
+                    out.write( "\\n" );
+                    break;
+                case '\r':
+                    out.write( "\\r" );
+                    break;
+                case '\t':
+                    out.write( "\\t" );
+                    break;
+                case '\b':
+                    out.write( "\\b" );
+                    break;
+                case '\f':
+                    out.write( "\\f" );
+                    break;
+                default:
+                    character( c );
+            }
+        }
+        out.write( '"' );
+    }
+
+    /**
+     * Writes a character of a quoted string that has no short escape.
+     */
+    protected void character( char c )
+        throws IOException
+    {
+        if ( c < 0x20 )
+        {
+            unicodeEscape( c );
+        }
+        else
+        {
+            out.write( c );
+        }
+    }
+
+    /**
+     * The format of {@link java.util.Properties#store(java.io.OutputStream, String)}, with the given line separator.
+     */
+    private static class PropertiesFormat
+        extends PropertyWriter
+    {
+        private final String lineSeparator;
+
+        PropertiesFormat( File file, String lineSeparator )
+            throws IOException
+        {
+            super( file, StandardCharsets.ISO_8859_1 );
+            this.lineSeparator = lineSeparator;
+        }
+
+        protected void start()
+            throws IOException
+        {
+            out.write( "#Properties" + lineSeparator + "#" + new Date() + lineSeparator );
+        }
+
+        void write( String key, String value )
+            throws IOException
+        {
+            escape( key, true );
+            out.write( '=' );
+            escape( value, false );
+            out.write( lineSeparator );
+        }
+
+        private void escape( String string, boolean isKey )
+            throws IOException
+        {
+            for ( int i = 0; i < string.length(); i++ )
+            {
+                char c = string.charAt( i );
+                switch ( c )
+                {
+                    case ' ':
+                        if ( i == 0 || isKey )
+                        {
+                            out.write( '\\' );
+                        }
+                        out.write( ' ' );
+                        break;
+                    case '\t':
+                        out.write( "\\t" );
+                        break;
+                    case '\n':
+                        out.write( "\\n" );
+                        break;
+                    case '\r':
+                        out.write( "\\r" );
+                        break;
+                    case '\f':
+                        out.write( "\\f" );
+                        break;
+                    case '=':
+                    case ':':
+                    case '#':
+                    case '!':
+                    case '\\':
+                        out.write( '\\' );
+                        out.write( c );
+                        break;
+                    default:
+                        if ( c < 0x20 || c > 0x7E )
+                        {
+                            unicodeEscape( c );
+                        }
+                        else
+                        {
+                            out.write( c );
+                        }
+                }
+            }
+        }
+    }
+
+    /**
+     * A dotenv file, keys are upper case with every other character than letters and digits replaced by
+     * <code>_</code>.
+     */
+    private static class EnvFormat
+        extends PropertyWriter
+    {
+        EnvFormat( File file )
+            throws IOException
+        {
+            super( file, StandardCharsets.UTF_8 );
+        }
+
+        void write( String key, String value )
+            throws IOException
+        {
+            out.write( envName( key ) );
+            out.write( "=\"" );
+            for ( int i = 0; i < value.length(); i++ )
+            {
+                char c = value.charAt( i );
+                switch ( c )
+                {
+                    case '"':
+                    case '\\':
+                    case '$':
+                    case '`':
+                        out.write( '\\' );
+                        out.write( c );
+                        break;
+                    case '\n':
+                        out.write( "\\n" );
+                        break;
+                    case '\r':
+                        out.write( "\\r" );
+                        break;
+                    default:
+                        out.write( c );
+                }
+            }
+            out.write( "\"\n" );
+        }
+
+        static String envName( String key )
+        {
+            StringBuilder name = new StringBuilder( key.length() );
+            for ( int i = 0; i < key.length(); i++ )
+            {
+                char c = key.charAt( i );
+                name.append( ( c < 0x80 && Character.isLetterOrDigit( c ) ) ? Character.toUpperCase( c ) : '_' );
+            }
+            if ( name.length() == 0 || Character.isDigit( name.charAt( 0 ) ) )
+            {
+                name.insert( 0, '_' );
+            }
+            return name.toString();
+        }
+    }
+
+    /**
+     * A flat JSON object.
+     */
+    private static class JsonFormat
+        extends PropertyWriter
+    {
+        private boolean first = true;
+
+        JsonFormat( File file )
+            throws IOException
+        {
+            super( file, StandardCharsets.UTF_8 );
+        }
+
+        protected void start()
+            throws IOException
+        {
+            out.write( '{' );
+        }
+
+        void write( String key, String value )
+            throws IOException
+        {
+            out.write( first ? "\n  " : ",\n  " );
+            first = false;
+            quoted( key );
+            out.write( ": " );
+            quoted( value );
+        }
+
+        protected void end()
+            throws IOException
+        {
+            out.write( first ? "}\n" : "\n}\n" );
+        }
+    }
+
+    /**
+     * A Java class with a <code>String</code> constant per property.
+     */
+    static class JavaFormat
+        extends PropertyWriter
+    {
+        private final String packageName;
+
+        private final String simpleName;
+
+        protected final Set<String> names = new HashSet<String>();
+
+        JavaFormat( File file, String className )
+            throws IOException
+        {
+            super( file, StandardCharsets.UTF_8 );
+            if ( className == null )
+            {
+                className = file.getName().replaceFirst( "\\.java$", "" );
+            }
+            int dot = className.lastIndexOf( '.' );
+            this.packageName = dot < 0 ? null : className.substring( 0, dot );
+            this.simpleName = className.substring( dot + 1 );
+        }
+
+        protected void start()
+            throws IOException
+        {
+            if ( packageName != null )
+            {
+                out.write( "package " + packageName + ";\n\n" );
+            }
+            out.write( "/**\n * Generated by the properties-maven-plugin, do not edit.\n */\n" );
+            out.write( "public final class " + simpleName + "\n{\n" );
+        }
+
+        void write( String key, String value )
+            throws IOException
+        {
+            out.write( "    /** <code>" );
+            out.write( key.replace( "&", "&amp;" ).replace( "<", "&lt;" ).replace( "*/", "*&#47;" )
+                .replace( "\\", "&#92;" ) );
+            out.write( "</code> */\n    public static final String " );
+            out.write( constantName( key ) );
+            out.write( " = " );
+            quoted( value );
+            out.write( ";\n\n" );
+        }
+
+        protected void character( char c )
+            throws IOException
+        {
+            if ( c < 0x20 )
+            {
+                // a unicode escape of a line break would end the literal
+                out.write( String.format( "\\%03o", (int) c ) );
+            }
+            else if ( c > 0x7E )
+            {
+                // independent of the source encoding of the project
+                unicodeEscape( c );
+            }
+            else
+            {
+                out.write( c );
+            }
+        }
+
+        protected void end()
+            throws IOException
+        {
+            out.write( "    private " + simpleName + "()\n    {\n    }\n}\n" );
+        }
+
+        private String constantName( String key )
+        {
+            String name = EnvFormat.envName( key );
+            if ( "_".equals( name ) )
+            {
+                // a key without letters or digits, a lone underscore is a keyword since Java 9
+                name = "_KEY";
+            }
+            String unique = name;
+            for ( int i = 2; !names.add( unique ); i++ )
+            {
+                unique = name + "_" + i;
+            }
+            return unique;
+        }
+    }
+
+    /**
+     * A Java class that also looks up values by key, with a minimal perfect hash built when the class is generated so
+     * that a lookup is two hash computations and a single string comparison. The tables are filled in chunks to keep
+     * each generated method below the size limit of the class file format.
+     */
+    static class LookupFormat
+        extends JavaFormat
+    {
+        private static final int CHUNK = 1000;
+
+        private final List<String> keys = new ArrayList<String>();
+
+        private final List<String> values = new ArrayList<String>();
+
+        LookupFormat( File file, String className )
+            throws IOException
+        {
+            super( file, className );
+            names.addAll( Arrays.asList( "KEYS", "VALUES", "SEEDS" ) );
+        }
+
+        void write( String key, String value )
+            throws IOException
+        {
+            super.write( key, value );
+            keys.add( key );
+            values.add( value );
+        }
+
+        protected void end()
+            throws IOException
+        {
+            PerfectHash hash = PerfectHash.build( keys );
+            int[] slots = hash.getSlots();
+            int[] seeds = hash.getSeeds();
+            out.write( "    private static final String[] KEYS = new String[" + slots.length + "];\n\n" );
+            out.write( "    private static final String[] VALUES = new String[" + slots.length + "];\n\n" );
+            out.write( "    private static final int[] SEEDS = new int[" + seeds.length + "];\n\n" );
+
+            int chunks = 0;
+            StringBuilder init = new StringBuilder();
+            for ( int start = 0; start < Math.max( slots.length, seeds.length ); start += CHUNK, chunks++ )
+            {
+                out.write( "    private static void init" + chunks + "()\n    {\n" );
+                for ( int slot = start; slot < Math.min( start + CHUNK, slots.length ); slot++ )
+                {
+                    out.write( "        KEYS[" + slot + "] = " );
+                    quoted( keys.get( slots[slot] ) );
+                    out.write( ";\n        VALUES[" + slot + "] = " );
+                    quoted( values.get( slots[slot] ) );
+                    out.write( ";\n" );
+                }
+                for ( int bucket = start; bucket < Math.min( start + CHUNK, seeds.length ); bucket++ )
+                {
+                    out.write( "        SEEDS[" + bucket + "] = " + seeds[bucket] + ";\n" );
+                }
+                out.write( "    }\n\n" );
+                init.append( "        init" ).append( chunks ).append( "();\n" );
+            }
+            out.write( "    static\n    {\n" + init + "    }\n\n" );
+
+            out.write( "    /**\n     * @param key The key.\n     * @return The value of the property, or <code>null</code>"
+                + " if there is no such property.\n     */\n" );
+            out.write( "    public static String get( String key )\n    {\n" );
+            if ( slots.length == 0 )
+            {
+                out.write( "        return null;\n" );
+            }
+            else
+            {
+                out.write( "        int slot = hash( key, SEEDS[hash( key, 0 ) % SEEDS.length] ) % KEYS.length;\n" );
+                out.write( "        return key.equals( KEYS[slot] ) ? VALUES[slot] : null;\n" );
+            }
+            out.write( "    }\n\n" );
+            out.write( PerfectHash.HASH_SOURCE );
+            out.write( "\n" );
+            super.end();
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package org.codehaus.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Records which resource, and which line of it, last set each of a few tracked keys. The origin of a key is kept as a
+ * single int in an array indexed by the position of the key among the tracked keys, packing the index of the resource
+ * with the line number. Keys that are not tracked cost a single lookup when they are read and are not remembered.
+ */
+class Provenance
+{
+    private static final int LINE_BITS = 20;
+
+    private static final int LINE_MASK = ( 1 << LINE_BITS ) - 1;
+
+    private static final int NOT_RECORDED = -1;
+
+    /**
+     * The most resources that can be told apart, keys of later resources have no known origin.
+     */
+    static final int MAX_RESOURCES = ( 1 << ( 32 - LINE_BITS ) ) - 1;
+
+    private final List<String> resources = new ArrayList<String>();
+
+    private final Map<String, Integer> keyIds = new HashMap<String, Integer>();
+
+    private final int[] origins;
+
+    /**
+     * @param keys The keys to track.
+     */
+    Provenance( String... keys )
+    {
+        for ( String key : keys )
+        {
+            if ( !keyIds.containsKey( key ) )
+            {
+                keyIds.put( key, keyIds.size() );
+            }
+        }
+        origins = new int[keyIds.size()];
+        Arrays.fill( origins, NOT_RECORDED );
+    }
+
+    /**
+     * @param resource The description of a resource.
+     * @return The index to record keys of the resource with.
+     */
+    int addResource( String resource )
+    {
+        resources.add( resource );
+        return resources.size() - 1;
+    }
+
+    /**
+     * @param key The key, ignored unless it is tracked.
+     * @param resource The index of the resource that set the key.
+     * @param line The line of the resource that set the key, <code>0</code> if not known.
+     */
+    void record( String key, int resource, int line )
+    {
+        Integer id = keyIds.get( key );
+        if ( id != null )
+        {
+            origins[id] = resource < MAX_RESOURCES ? ( resource + 1 ) << LINE_BITS | Math.min( line, LINE_MASK ) : 0;
+        }
+    }
+
+    /**
+     * @param resource The index of the resource.
+     * @param properties The properties read from the resource, with line numbers if they are known.
+     * @param keyPrefix The prefix the keys are stored with, may be <code>null</code>.
+     */
+    void record( int resource, Properties properties, String keyPrefix )
+    {
+        Map<String, Integer> lines =
+            properties instanceof Located ? ( (Located) properties ).lines : new HashMap<String, Integer>();
+        for ( String key : properties.stringPropertyNames() )
+        {
+            Integer line = lines.get( key );
+            record( keyPrefix != null ? keyPrefix + key : key, resource, line != null ? line : 0 );
+        }
+    }
+
+    /**
+     * @param key The key.
+     * @return Where the key was last set, such as <code>/path/app.properties:12</code>, or <code>null</code> if it
+     *         is not tracked or was not read.
+     */
+    String describe( String key )
+    {
+        Integer id = keyIds.get( key );
+        if ( id == null || origins[id] == NOT_RECORDED )
+        {
+            return null;
+        }
+        int origin = origins[id];
+        if ( origin == 0 )
+        {
+            return "an unknown resource";
+        }
+        String resource = resources.get( ( origin >>> LINE_BITS ) - 1 );
+        int line = origin & LINE_MASK;
+        return line == 0 ? resource : resource + ":" + line;
+    }
+
+    /**
+     * Reads a source and, for the properties format, the line each key is defined on.
+     *
+     * @param stream The source, already decompressed.
+     * @param format The format of the source.
+     * @return The properties of the source.
+     * @throws IOException If the source could not be read or parsed.
+     */
+    static Properties parse( InputStream stream, SourceFormat format )
+        throws IOException
+    {
+        Located properties = new Located();
+        if ( format == SourceFormat.PROPERTIES )
+        {
+            load( new BufferedReader( new InputStreamReader( stream, StandardCharsets.ISO_8859_1 ) ), properties );
+        }
+        else
+        {
+            format.load( stream, properties );
+        }
+        return properties;
+    }
+
+    /**
+     * Loads the source one logical line at a time, that is one line plus any continuation lines, noting the first line
+     * of each. Each logical line is parsed by {@link Properties} so keys and values are unescaped exactly as it does.
+     */
+    private static void load( BufferedReader reader, Located properties )
+        throws IOException
+    {
+        Properties single = new Properties();
+        int number = 0;
+        for ( String line = reader.readLine(); line != null; line = reader.readLine() )
+        {
+            int first = ++number;
+            String trimmed = line.replaceFirst( "^[ \t\f]+", "" );
+            if ( trimmed.isEmpty() || trimmed.charAt( 0 ) == '#' || trimmed.charAt( 0 ) == '!' )
+            {
+                continue;
+            }
+            StringBuilder logical = new StringBuilder( line );
+            for ( String next = line; endsWithContinuation( next ); )
+            {
+                next = reader.readLine();
+                if ( next == null )
+                {
+                    break;
+                }
+                number++;
+                logical.append( '\n' ).append( next );
+            }
+            single.clear();
+            single.load( new StringReader( logical.toString() ) );
+            for ( String key : single.stringPropertyNames() )
+            {
+                properties.put( key, single.getProperty( key ) );
+                properties.lines.put( key, first );
+            }
+        }
+    }
+
+    private static boolean endsWithContinuation( String line )
+    {
+        int backslashes = 0;
+        for ( int i = line.length() - 1; i >= 0 && line.charAt( i ) == '\\'; i-- )
+        {
+            backslashes++;
+        }
+        return backslashes % 2 == 1;
+    }
+
+    /**
+     * Properties together with the line each key was defined on.
+     */
+    private static class Located
+        extends Properties
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Map<String, Integer> lines = new HashMap<String, Integer>();
+    }
+}
@@ -20,25 +20,52 @@ package org.codehaus.mojo.properties;
  */
 
 import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
+import java.nio.charset.Charset;
 import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Properties;
-
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.maven.artifact.handler.ArtifactHandler;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.artifact.handler.manager.ArtifactHandlerManager;
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Component;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
+import org.codehaus.plexus.util.SelectorUtils;
 import org.codehaus.plexus.util.cli.CommandLineUtils;
 
 /**
@@ -65,8 +92,25 @@ public class ReadPropertiesMojo
     @Parameter( defaultValue = "${project.properties}", readonly = true, required = true )
     private Properties projectProperties;
 
+    @Parameter( defaultValue = "${project.basedir}", readonly = true )
+    private File basedir;
+
+    /**
+     * Maps the type of an <code>artifact:</code> URL to the extension and default classifier of its file.
+     */
+    @Component
+    private ArtifactHandlerManager artifactHandlerManager;
+
     /**
-     * The properties files that will be used when reading properties.
+     * The properties files that will be used when reading properties. Files ending in <code>.gz</code> are
+     * decompressed while they are read. An entry may also be a directory, which reads all <code>*.properties</code>
+     * (and <code>*.properties.gz</code> and <code>*.pbundle</code>) files below it, or an Ant style pattern such as
+     * <code>config/**&#47;*.properties</code>. The files of such an entry are read in order of their relative path.
+     * Relative entries are resolved against the project directory.
+     * Files ending in <code>.pbundle</code> are bundles written by the <code>compile-properties</code> goal, which are
+     * loaded without parsing text. Files ending in <code>.json</code>, <code>.yaml</code> or <code>.yml</code> are
+     * read as JSON or YAML documents whose nested keys are flattened into dotted keys, such as
+     * <code>db.hosts[0]</code>.
      */
     @Parameter
     private File[] files = new File[0];
@@ -93,6 +137,19 @@ public class ReadPropertiesMojo
     @Parameter
     private File[] readFiles = new File[0];
 
+    /**
+     * The encoding of the <code>readFiles</code>.
+     */
+    @Parameter( defaultValue = "UTF-8" )
+    private String readFilesEncoding = "UTF-8";
+
+    /**
+     * The maximum size in bytes of each of the <code>readFiles</code>, the build fails for larger files. Set to
+     * <code>0</code> to allow any size.
+     */
+    @Parameter( defaultValue = "67108864" )
+    private long readFilesMaxSize = 67108864;
+
     /**
      * @param files The readFiles to set for tests.
      */
@@ -112,7 +169,17 @@ public class ReadPropertiesMojo
     /**
      * The URLs that will be used when reading properties. These may be non-standard URLs of the form
      * <code>classpath:com/company/resource.properties</code>. Note that the type is not <code>URL</code> for this
-     * reason and therefore will be explicitly checked by this Mojo.
+     * reason and therefore will be explicitly checked by this Mojo. The form
+     * <code>classpath*:com/company/**&#47;*.properties</code> reads all matching resources of the plugin class path,
+     * in class path order and then by name.
+     * <p>
+     * Entries of archives are read without extracting them: <code>zip:path/to/archive.zip!/entry.properties</code>
+     * reads an entry of any zip or jar file, with relative paths resolved against the project directory, and
+     * <code>artifact:groupId:artifactId:version[:type[:classifier]]!/entry.properties</code> reads an entry of an
+     * artifact in the local repository, with the file extension and default classifier of its type, such as
+     * <code>-tests.jar</code> for a <code>test-jar</code>. URLs ending in <code>.gz</code> or served with a
+     * <code>gzip</code> or <code>deflate</code> content encoding are decompressed while they are read. As for
+     * <code>files</code>, JSON and YAML documents are recognized by their extension.
      */
     @Parameter
     private String[] urls = new String[0];
@@ -135,6 +202,92 @@ public class ReadPropertiesMojo
         }
     }
 
+    /**
+     * Timeout in milliseconds for establishing the connection to a URL, <code>0</code> waits forever.
+     */
+    @Parameter( defaultValue = "10000" )
+    private int connectTimeout = 10000;
+
+    /**
+     * Timeout in milliseconds for reading from a URL once connected, <code>0</code> waits forever.
+     */
+    @Parameter( defaultValue = "30000" )
+    private int readTimeout = 30000;
+
+    /**
+     * How often fetching a URL is retried after a timeout, a reset connection, a server error or a 429 response.
+     * Unknown hosts, refused connections, TLS failures and other client errors are never retried.
+     */
+    @Parameter( defaultValue = "2" )
+    private int retries = 2;
+
+    /**
+     * Delay in milliseconds before the first retry of a URL, doubled for every further retry.
+     */
+    @Parameter( defaultValue = "500" )
+    private long retryBackoff = 500;
+
+    /**
+     * Keep the properties parsed from <code>files</code> in memory for later executions in the same JVM, which pays
+     * off in long-lived build daemons. Cached files are read again after a change to them has been reported by the
+     * file system, or once their size or last modified time differs from when they were parsed.
+     */
+    @Parameter( defaultValue = "false" )
+    private boolean cacheSources;
+
+    /**
+     * Keep the outcome of property resolution in memory, so that later executions in the same JVM that load identical
+     * properties skip resolution. A cached outcome is only used while the project properties, system properties and
+     * environment variables it depends on are unchanged.
+     */
+    @Parameter( defaultValue = "false" )
+    private boolean cacheResolution;
+
+    /**
+     * Expected SHA-256 digests, in hexadecimal, of entries of <code>files</code> or <code>urls</code>, keyed by the
+     * file path or URL as configured. A file read through a directory or pattern entry is keyed by its own path. The
+     * digest is of the content as stored, before a <code>.gz</code> file is decompressed, and is computed while the
+     * content is parsed. If a digest does not match, the build fails before any property is added to the session.
+     */
+    @Parameter
+    private Properties checksums = new Properties();
+
+    /**
+     * A keystore holding the secret AES key that values of the form <code>ENC(...)</code> are encrypted with. Such
+     * values are stored in the session as they are read, and only decrypted when a placeholder refers to them during
+     * resolution, so the cost of decryption grows with the secrets used rather than with the secrets stored. Each value
+     * is decrypted at most once per execution. Resolution is not cached while values are decrypted, even if
+     * <code>cacheResolution</code> is set.
+     */
+    @Parameter
+    private File decryptionKeystore;
+
+    /**
+     * The type of the <code>decryptionKeystore</code>.
+     */
+    @Parameter( defaultValue = "JCEKS" )
+    private String decryptionKeystoreType = "JCEKS";
+
+    /**
+     * The password of the <code>decryptionKeystore</code> and of the key.
+     */
+    @Parameter
+    private String decryptionKeystorePassword;
+
+    /**
+     * The alias of the key in the <code>decryptionKeystore</code>.
+     */
+    @Parameter( defaultValue = "properties" )
+    private String decryptionKeyAlias = "properties";
+
+    /**
+     * Keys to log the origin and resolution of, to find out which resource and line set a key last and which
+     * placeholders its value was resolved from. Origins are only tracked for these keys, so list the keys a value is
+     * resolved from as well to see where they were set.
+     */
+    @Parameter
+    private String[] provenanceKeys = new String[0];
+
     /**
      * If the plugin should be quiet if any of the files was not found
      */
@@ -154,6 +307,23 @@ public class ReadPropertiesMojo
     @Parameter( defaultValue = "false" )
     private boolean skipResolution;
 
+    /**
+     * Keys to resolve, which may contain the wildcards <code>*</code> and <code>?</code>. When set, only these keys and
+     * the keys their values refer to, directly or indirectly, are resolved and all other properties are left as they
+     * were read. Resolution is then not cached, even if <code>cacheResolution</code> is set.
+     */
+    @Parameter
+    private String[] resolveOnly = new String[0];
+
+    /**
+     * The delimiters of placeholders, where <code>*</code> separates the start from the end delimiter, such as
+     * <code>${*}</code> or <code>#{*}</code>, and a delimiter without <code>*</code> such as <code>@</code> is used
+     * for both. All delimiters are recognized in a single scan of each value, and an unresolved placeholder is kept
+     * with the delimiters it was written with.
+     */
+    @Parameter
+    private String[] placeholderDelimiters = new String[] { "${*}" };
+
     /**
      * Prefix that will be added before name of each property.
      * Can be useful for separating properties with same name from different files.
@@ -171,6 +341,23 @@ public class ReadPropertiesMojo
      */
     private final PropertyResolver resolver = new PropertyResolver();
 
+    /**
+     * The origins of the keys, while provenance is tracked.
+     */
+    private Provenance provenance;
+
+    /**
+     * Where loaded properties are stored until they are added to the session all at once, after all checksums are
+     * verified. Parallel executions share the session and would otherwise resolve keys of a file that is only partly
+     * added.
+     */
+    private Properties loaded;
+
+    /**
+     * The expected digests of files and URLs that are not read yet.
+     */
+    private Map<Object, String> expectedDigests;
+
     /** {@inheritDoc} */
     public void execute()
         throws MojoExecutionException, MojoFailureException
@@ -182,17 +369,91 @@ public class ReadPropertiesMojo
 
         checkParameters();
 
-        loadFiles();
+        provenance = provenanceKeys.length > 0 ? new Provenance( provenanceKeys ) : null;
+
+        try
+        {
+            resolver.setSyntax( PlaceholderSyntax.compile( placeholderDelimiters ) );
+        }
+        catch ( IllegalArgumentException e )
+        {
+            throw new MojoExecutionException( e.getMessage(), e );
+        }
+
+        EncryptedValues encryptedValues = loadEncryptedValues();
+        resolver.setEncryptedValues( encryptedValues );
+
+        expectedDigests = expectedDigests();
+        loaded = new Properties();
+
+        ArchiveCache archives = new ArchiveCache();
 
-        loadUrls();
+        Resource[] urlResources = createUrlResources( archives );
+
+        ExecutorService prefetchPool = prefetch( urlResources );
+
+        try
+        {
+            loadFiles();
+
+            loadUrls( urlResources );
+        }
+        finally
+        {
+            if ( prefetchPool != null )
+            {
+                prefetchPool.shutdownNow();
+            }
+            close( archives );
+        }
 
         loadReadFiles();
 
+        if ( !expectedDigests.isEmpty() )
+        {
+            throw new MojoExecutionException( "Checksums given for entries that were not read: "
+                + expectedDigests.keySet() );
+        }
+        session.getUserProperties().putAll( loaded );
+
+        if ( cacheSources )
+        {
+            getLog().debug( "Source cache: " + SourceCache.getInstance().statistics() );
+        }
+
+        if ( provenance != null )
+        {
+            logProvenance();
+        }
+
         if ( !skipResolution ) {
             resolveProperties();
         } else {
             getLog().info( "skipping property resolution" );
         }
+
+        if ( encryptedValues != null )
+        {
+            getLog().debug( "Decrypted " + encryptedValues.size() + " values" );
+        }
+    }
+
+    private EncryptedValues loadEncryptedValues()
+        throws MojoExecutionException
+    {
+        if ( decryptionKeystore == null )
+        {
+            return null;
+        }
+        try
+        {
+            return EncryptedValues.load( decryptionKeystore, decryptionKeystoreType, decryptionKeystorePassword,
+                                         decryptionKeyAlias );
+        }
+        catch ( IOException e )
+        {
+            throw new MojoExecutionException( e.getMessage(), e );
+        }
     }
 
     private void checkParameters()
@@ -205,195 +466,861 @@ public class ReadPropertiesMojo
         }
     }
 
-    private void loadFiles()
+    /**
+     * @return The expected digests of the <code>checksums</code>, keyed by the absolute file or the URL.
+     */
+    private Map<Object, String> expectedDigests()
         throws MojoExecutionException
     {
-        for ( int i = 0; i < files.length; i++ )
+        Map<Object, String> digests = new HashMap<Object, String>();
+        for ( String entry : checksums.stringPropertyNames() )
         {
-            load( new FileResource( files[i] ) );
+            String digest = checksums.getProperty( entry ).trim().toLowerCase( Locale.ENGLISH );
+            if ( !digest.matches( "[0-9a-f]{64}" ) )
+            {
+                throw new MojoExecutionException( "The checksum of " + entry + " is not a hexadecimal SHA-256 digest" );
+            }
+            digests.put( files.length > 0 ? fileKey( new File( entry ) ) : entry, digest );
         }
+        return digests;
     }
 
-    private void loadUrls()
-        throws MojoExecutionException
+    private Object fileKey( File file )
     {
-        for ( int i = 0; i < urls.length; i++ )
-        {
-            load( new UrlResource( urls[i] ) );
-        }
+        return FileExpander.resolve( file, basedir ).getAbsoluteFile().toPath().normalize();
     }
 
-    private void loadReadFiles()
-        throws MojoExecutionException
+    private FileResource fileResource( File file )
     {
-        for ( int i = 0; i < readFiles.length; i++ )
-        {
-            loadAsProperty( new FileResource( readFiles[i] ) );
-        }
+        FileResource resource = new FileResource( file );
+        resource.expectDigest( expectedDigests.remove( fileKey( file ) ) );
+        return resource;
     }
 
-    private void load( Resource resource )
+    private void loadFiles()
         throws MojoExecutionException
     {
-        if ( resource.canBeOpened() )
-        {
-            loadProperties( resource );
-        }
-        else
+        for ( int i = 0; i < files.length; i++ )
         {
-            missing( resource );
+            File entry = FileExpander.resolve( files[i], basedir );
+            if ( FileExpander.needsExpansion( entry ) )
+            {
+                loadExpanded( entry );
+            }
+            else
+            {
+                load( fileResource( entry ) );
+            }
         }
     }
 
-    private void loadAsProperty( FileResource resource )
+    private void loadExpanded( File entry )
         throws MojoExecutionException
     {
-        if ( resource.canBeOpened() )
+        List<File> expanded;
+        try
         {
-            loadIntoProperty( resource );
+            expanded = FileExpander.expand( entry );
         }
-        else
+        catch ( IOException e )
         {
-            missing( resource );
+            throw new MojoExecutionException( "Error listing files of " + entry, e );
         }
-    }
 
-    private void loadProperties( Resource resource )
-        throws MojoExecutionException
-    {
-        try
+        if ( expanded.isEmpty() )
         {
-            getLog().debug( "Loading properties from " + resource );
-
-            final InputStream stream = resource.getInputStream();
+            missing( new FileResource( entry ) );
+            return;
+        }
+        getLog().debug( entry + " expands to " + expanded.size() + " file(s)" );
 
-            try
+        // parse all files at once but merge them in order, so later files still take precedence
+        final boolean lines = provenance != null;
+        ExecutorService executor = WorkerPools.newWorkerPool( "properties-file-loader", expanded.size() );
+        try
+        {
+            List<FileResource> resources = new ArrayList<FileResource>( expanded.size() );
+            List<Future<Properties>> parsed = new ArrayList<Future<Properties>>( expanded.size() );
+            for ( File file : expanded )
             {
-                if ( keyPrefix != null )
+                final FileResource resource = fileResource( file );
+                resources.add( resource );
+                parsed.add( executor.submit( new Callable<Properties>()
                 {
-                    Properties properties = new Properties();
-                    properties.load( stream );
-                    Properties userProperties = session.getUserProperties();
-                    for ( String key : properties.stringPropertyNames() )
+                    public Properties call()
+                        throws IOException
                     {
-                        userProperties.put( keyPrefix + key, properties.get( key ) );
+                        Object event = PluginEvents.beginLoad();
+                        Properties properties = cacheSources && !lines && !resource.hasExpectedDigest()
+                            ? parseCached( resource ) : parse( resource, lines );
+                        PluginEvents.commitLoad( event, resource.toString(), resource.getBytesRead() );
+                        return properties;
                     }
-                }
-                else
-                {
-                    session.getUserProperties().load( stream );
-                }
+                } ) );
             }
-            finally
+            for ( int i = 0; i < parsed.size(); i++ )
             {
-                stream.close();
+                FileResource resource = resources.get( i );
+                getLog().debug( "Loading properties from " + resource );
+                merge( get( parsed.get( i ), resource ), resource );
             }
         }
-        catch ( IOException e )
+        finally
         {
-            throw new MojoExecutionException( "Error reading properties from " + resource, e );
+            executor.shutdownNow();
         }
     }
 
-    private void loadIntoProperty( FileResource resource )
-        throws MojoExecutionException
+    private static Properties parse( Resource resource, boolean lines )
+        throws IOException
     {
+        Properties properties = new Properties();
+        if ( isBundle( resource ) )
+        {
+            PropertyBundle.open( ( (FileResource) resource ).file ).copyTo( properties, null );
+            resource.verify();
+            return properties;
+        }
+        InputStream stream = resource.getInputStream();
         try
         {
-            final String propertyName = keyPrefix != null ? keyPrefix + resource.getName() : resource.getName();
+            if ( lines )
+            {
+                properties = Provenance.parse( stream, SourceFormat.forName( resource.getName() ) );
+            }
+            else
+            {
+                SourceFormat.forName( resource.getName() ).load( stream, properties );
+            }
+            resource.verify();
+        }
+        finally
+        {
+            stream.close();
+        }
+        return properties;
+    }
 
-            getLog().debug( "Loading " + resource + " into property " + propertyName );
+    private Properties parseCached( FileResource resource )
+        throws IOException
+    {
+        SourceCache cache = SourceCache.getInstance();
+        Path path = resource.toPath();
+        Properties parsed = cache.get( path );
+        if ( parsed == null )
+        {
+            SourceCache.Stamp stamp = cache.watch( path );
+            parsed = parse( resource, false );
+            cache.put( path, parsed, stamp );
+        }
+        return parsed;
+    }
 
-            session.getUserProperties().put( propertyName, new String( Files.readAllBytes( resource.toPath() ), StandardCharsets.UTF_8 ) );
+    private void merge( Properties properties, Resource resource )
+    {
+        if ( provenance != null )
+        {
+            provenance.record( provenance.addResource( resource.toString() ), properties, keyPrefix );
         }
-        catch ( IOException e )
+        for ( String key : properties.stringPropertyNames() )
         {
-            throw new MojoExecutionException( "Error reading from " + resource, e );
+            loaded.put( keyPrefix != null ? keyPrefix + key : key, properties.get( key ) );
         }
     }
 
-    private void missing( Resource resource )
+    private static <T> T get( Future<T> future, Resource resource )
         throws MojoExecutionException
     {
-        if ( quiet )
+        try
         {
-            getLog().info( "Quiet processing - ignoring properties cannot be loaded from " + resource );
+            return future.get();
         }
-        else
+        catch ( InterruptedException e )
         {
-            throw new MojoExecutionException( "Properties could not be loaded from " + resource );
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException( "Interrupted while reading properties from " + resource, e );
+        }
+        catch ( ExecutionException e )
+        {
+            if ( e.getCause() instanceof ChecksumMismatchException )
+            {
+                throw new MojoExecutionException( e.getCause().getMessage(), e.getCause() );
+            }
+            throw new MojoExecutionException( "Error reading properties from " + resource, e.getCause() );
         }
     }
 
-    private void resolveProperties()
-        throws MojoExecutionException, MojoFailureException
+    private Resource[] createUrlResources( ArchiveCache archives )
+        throws MojoExecutionException
     {
-        Properties environment = loadSystemEnvironmentPropertiesWhenDefined();
-        Properties userProperties = session.getUserProperties();
-
-        for ( Enumeration<?> n = userProperties.propertyNames(); n.hasMoreElements(); )
+        ClasspathIndex classpath = null;
+        List<Resource> resources = new ArrayList<Resource>( urls.length );
+        for ( int i = 0; i < urls.length; i++ )
         {
-            String k = (String) n.nextElement();
-            userProperties.setProperty( k, getPropertyValue( k, userProperties, environment ) );
+            String url = urls[i];
+            String digest = expectedDigests.remove( url );
+            if ( url.startsWith( ArchiveResource.ZIP_PREFIX ) || url.startsWith( ArchiveResource.ARTIFACT_PREFIX ) )
+            {
+                ArchiveResource resource = createArchiveResource( url, archives );
+                resource.expectDigest( digest );
+                resources.add( resource );
+                continue;
+            }
+            if ( url.startsWith( UrlResource.CLASSPATH_PREFIX ) || url.startsWith( UrlResource.CLASSPATH_ALL_PREFIX ) )
+            {
+                if ( classpath == null )
+                {
+                    classpath = indexClasspath();
+                }
+                if ( url.startsWith( UrlResource.CLASSPATH_ALL_PREFIX ) )
+                {
+                    if ( digest != null )
+                    {
+                        throw new MojoExecutionException( "A checksum cannot be given for " + url
+                            + ", which may match several resources" );
+                    }
+                    addAllMatches( resources, url, classpath );
+                    continue;
+                }
+            }
+            UrlResource resource = new UrlResource( url, classpath );
+            resource.expectDigest( digest );
+            resources.add( resource );
         }
+        return resources.toArray( new Resource[resources.size()] );
     }
 
-    private Properties loadSystemEnvironmentPropertiesWhenDefined()
+    private ArchiveResource createArchiveResource( String url, ArchiveCache archives )
         throws MojoExecutionException
     {
-        Properties userProperties = session.getUserProperties();
+        int separator = url.indexOf( ArchiveResource.ENTRY_SEPARATOR );
+        if ( separator < 0 )
+        {
+            throw new MojoExecutionException( "Badly formed URL " + url + " - missing "
+                + ArchiveResource.ENTRY_SEPARATOR + " before the entry name" );
+        }
+        String entry = url.substring( separator + ArchiveResource.ENTRY_SEPARATOR.length() );
 
-        boolean useEnvVariables = false;
-        for ( Enumeration<?> n = userProperties.propertyNames(); n.hasMoreElements(); )
+        File archive;
+        if ( url.startsWith( ArchiveResource.ZIP_PREFIX ) )
         {
-            String k = (String) n.nextElement();
-            String p = (String) userProperties.get( k );
-            if ( p.indexOf( "${env." ) != -1 )
+            archive = new File( url.substring( ArchiveResource.ZIP_PREFIX.length(), separator ) );
+            if ( !archive.isAbsolute() && basedir != null )
             {
-                useEnvVariables = true;
-                break;
+                archive = new File( basedir, archive.getPath() );
             }
         }
-        Properties environment = null;
-        if ( useEnvVariables )
+        else
         {
-            try
-            {
-                environment = getSystemEnvVars();
-            }
-            catch ( IOException e )
+            String[] coordinates = url.substring( ArchiveResource.ARTIFACT_PREFIX.length(), separator ).split( ":" );
+            if ( coordinates.length < 3 || coordinates.length > 5 )
             {
-                throw new MojoExecutionException( "Error getting system environment variables: ", e );
+                throw new MojoExecutionException( "Badly formed URL " + url
+                    + " - expected groupId:artifactId:version[:type[:classifier]]" );
             }
+            archive = localRepositoryFile( coordinates );
         }
-        return environment;
+        return new ArchiveResource( url, archive, entry, archives );
     }
 
-    private String getPropertyValue( String k, Properties p, Properties environment )
-        throws MojoFailureException
+    private File localRepositoryFile( String[] coordinates )
+    {
+        String groupId = coordinates[0];
+        String artifactId = coordinates[1];
+        String version = coordinates[2];
+        // e.g. a test-jar is stored as a jar with the tests classifier
+        ArtifactHandler handler = artifactHandler( coordinates.length > 3 ? coordinates[3] : "jar" );
+        String classifier = coordinates.length > 4 ? coordinates[4] : handler.getClassifier();
+        classifier = classifier == null || classifier.isEmpty() ? "" : "-" + classifier;
+        File directory = new File( session.getLocalRepository().getBasedir(),
+                                   groupId.replace( '.', '/' ) + "/" + artifactId + "/" + version );
+        return new File( directory, artifactId + "-" + version + classifier + "." + handler.getExtension() );
+    }
+
+    private ArtifactHandler artifactHandler( String type )
+    {
+        if ( artifactHandlerManager == null )
+        {
+            // not injected outside of a build
+            return new DefaultArtifactHandler( type );
+        }
+        return artifactHandlerManager.getArtifactHandler( type );
+    }
+
+    private void close( ArchiveCache archives )
     {
         try
         {
-            return resolver.getPropertyValue( k, p, projectProperties, environment );
+            archives.close();
         }
-        catch ( IllegalArgumentException e )
+        catch ( IOException e )
         {
-            throw new MojoFailureException( e.getMessage() );
+            getLog().warn( "Error closing archives: " + e.getMessage() );
         }
     }
 
-    /**
-     * Override-able for test purposes.
-     *
-     * @return The shell environment variables, can be empty but never <code>null</code>.
-     * @throws IOException If the environment variables could not be queried from the shell.
-     */
-    Properties getSystemEnvVars()
-        throws IOException
+    private ClasspathIndex indexClasspath()
+        throws MojoExecutionException
+    {
+        try
+        {
+            return ClasspathIndex.build( getClass().getClassLoader() );
+        }
+        catch ( IOException e )
+        {
+            throw new MojoExecutionException( "Error indexing the plugin class path", e );
+        }
+    }
+
+    private void addAllMatches( List<Resource> resources, String url, ClasspathIndex classpath )
+    {
+        String pattern = UrlResource.stripClasspathPrefix( url, UrlResource.CLASSPATH_ALL_PREFIX );
+        List<URL> matches = classpath.findAll( pattern );
+        if ( matches.isEmpty() )
+        {
+            resources.add( UrlResource.missing( url ) );
+        }
+        for ( URL match : matches )
+        {
+            getLog().debug( url + " matches " + match );
+            resources.add( new UrlResource( match ) );
+        }
+    }
+
+    /**
+     * Starts fetching all URL bodies in the background so that network latency overlaps instead of adding up. The
+     * bodies are still merged in declaration order by {@link #loadUrls(Resource[])}.
+     */
+    private ExecutorService prefetch( Resource[] resources )
+    {
+        if ( resources.length == 0 )
+        {
+            return null;
+        }
+        UrlFetcher fetcher = new UrlFetcher( connectTimeout, readTimeout, retries, retryBackoff, getLog() );
+        ExecutorService executor = WorkerPools.newWorkerPool( "properties-url-prefetch", resources.length );
+        for ( int i = 0; i < resources.length; i++ )
+        {
+            if ( resources[i] instanceof UrlResource )
+            {
+                ( (UrlResource) resources[i] ).prefetch( executor, fetcher );
+            }
+        }
+        return executor;
+    }
+
+    private void loadUrls( Resource[] resources )
+        throws MojoExecutionException
+    {
+        for ( int i = 0; i < resources.length; i++ )
+        {
+            load( resources[i] );
+        }
+    }
+
+    private void loadReadFiles()
+        throws MojoExecutionException
+    {
+        if ( readFiles.length == 0 )
+        {
+            return;
+        }
+
+        final Charset charset = readFilesCharset();
+
+        // read all files at once but store them in order, so a later file with the same name still wins
+        ExecutorService executor = WorkerPools.newWorkerPool( "properties-read-files", readFiles.length );
+        try
+        {
+            List<FileResource> resources = new ArrayList<FileResource>( readFiles.length );
+            List<Future<String>> contents = new ArrayList<Future<String>>( readFiles.length );
+            for ( int i = 0; i < readFiles.length; i++ )
+            {
+                final FileResource resource = new FileResource( readFiles[i] );
+                resources.add( resource );
+                contents.add( !resource.canBeOpened() ? null : executor.submit( new Callable<String>()
+                {
+                    public String call()
+                        throws IOException
+                    {
+                        Object event = PluginEvents.beginLoad();
+                        String content = TextFileReader.read( resource.toPath(), charset, readFilesMaxSize );
+                        PluginEvents.commitLoad( event, resource.toString(), resource.file.length() );
+                        return content;
+                    }
+                } ) );
+            }
+            for ( int i = 0; i < readFiles.length; i++ )
+            {
+                FileResource resource = resources.get( i );
+                if ( contents.get( i ) == null )
+                {
+                    missing( resource );
+                }
+                else
+                {
+                    loadIntoProperty( resource, contents.get( i ) );
+                }
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    private Charset readFilesCharset()
+        throws MojoExecutionException
+    {
+        try
+        {
+            return Charset.forName( readFilesEncoding );
+        }
+        catch ( IllegalArgumentException e )
+        {
+            throw new MojoExecutionException( "Unsupported readFilesEncoding " + readFilesEncoding, e );
+        }
+    }
+
+    private void load( Resource resource )
+        throws MojoExecutionException
+    {
+        if ( resource.canBeOpened() )
+        {
+            Object event = PluginEvents.beginLoad();
+            loadProperties( resource );
+            PluginEvents.commitLoad( event, resource.toString(), resource.getBytesRead() );
+        }
+        else
+        {
+            missing( resource );
+        }
+    }
+
+    private void loadProperties( Resource resource )
+        throws MojoExecutionException
+    {
+        try
+        {
+            getLog().debug( "Loading properties from " + resource );
+
+            if ( provenance != null )
+            {
+                merge( parse( resource, true ), resource );
+                return;
+            }
+
+            if ( cacheSources && resource instanceof FileResource && !resource.hasExpectedDigest() )
+            {
+                merge( parseCached( (FileResource) resource ), resource );
+                return;
+            }
+
+            if ( isBundle( resource ) )
+            {
+                PropertyBundle.open( ( (FileResource) resource ).file ).copyTo( loaded, keyPrefix );
+                resource.verify();
+                return;
+            }
+
+            final InputStream stream = resource.getInputStream();
+
+            try
+            {
+                SourceFormat format = SourceFormat.forName( resource.getName() );
+                if ( keyPrefix != null )
+                {
+                    Properties properties = new Properties();
+                    format.load( stream, properties );
+                    for ( String key : properties.stringPropertyNames() )
+                    {
+                        loaded.put( keyPrefix + key, properties.get( key ) );
+                    }
+                }
+                else
+                {
+                    format.load( stream, loaded );
+                }
+                resource.verify();
+            }
+            finally
+            {
+                stream.close();
+            }
+        }
+        catch ( ChecksumMismatchException e )
+        {
+            throw new MojoExecutionException( e.getMessage(), e );
+        }
+        catch ( IOException e )
+        {
+            throw new MojoExecutionException( "Error reading properties from " + resource, e );
+        }
+    }
+
+    private static boolean isBundle( Resource resource )
+    {
+        return resource instanceof FileResource && PropertyBundle.isBundle( ( (FileResource) resource ).file );
+    }
+
+    private void loadIntoProperty( FileResource resource, Future<String> content )
+        throws MojoExecutionException
+    {
+        final String propertyName = keyPrefix != null ? keyPrefix + resource.getName() : resource.getName();
+
+        getLog().debug( "Loading " + resource + " into property " + propertyName );
+
+        try
+        {
+            loaded.put( propertyName, content.get() );
+            if ( provenance != null )
+            {
+                provenance.record( propertyName, provenance.addResource( resource.toString() ), 0 );
+            }
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException( "Interrupted while reading from " + resource, e );
+        }
+        catch ( ExecutionException e )
+        {
+            if ( e.getCause() instanceof TextFileReader.FileTooLargeException )
+            {
+                throw new MojoExecutionException( "Error reading from " + resource + ": " + e.getCause().getMessage()
+                    + " (see readFilesMaxSize)", e.getCause() );
+            }
+            throw new MojoExecutionException( "Error reading from " + resource, e.getCause() );
+        }
+    }
+
+    private void missing( Resource resource )
+        throws MojoExecutionException
+    {
+        if ( quiet )
+        {
+            getLog().info( "Quiet processing - ignoring properties cannot be loaded from " + resource );
+        }
+        else
+        {
+            throw new MojoExecutionException( "Properties could not be loaded from " + resource );
+        }
+    }
+
+    private void logProvenance()
+        throws MojoExecutionException
+    {
+        Properties userProperties = session.getUserProperties();
+        Properties environment =
+            skipResolution ? null : loadSystemEnvironmentPropertiesWhenDefined( PlaceholderIndex.scan( userProperties, resolver.getSyntax() ) );
+        for ( String key : provenanceKeys )
+        {
+            String origin = provenance.describe( key );
+            if ( origin == null )
+            {
+                getLog().info( "Provenance: " + key + " was not read by this execution" );
+                continue;
+            }
+            getLog().info( "Provenance: " + key + "=" + userProperties.getProperty( key ) + " set by " + origin );
+            if ( skipResolution )
+            {
+                continue;
+            }
+
+            Map<String, String> trace = new LinkedHashMap<String, String>();
+            resolver.recordTrace( trace );
+            try
+            {
+                String value = resolver.getPropertyValue( key, userProperties, projectProperties, environment );
+                boolean decrypted = false;
+                for ( Map.Entry<String, String> lookup : trace.entrySet() )
+                {
+                    decrypted |= decryptionKeystore != null && lookup.getValue() != null
+                        && EncryptedValues.isEncrypted( lookup.getValue() );
+                    String from = provenance.describe( lookup.getKey() );
+                    if ( from == null )
+                    {
+                        from = lookup.getValue() == null ? "unresolved"
+                            : userProperties.containsKey( lookup.getKey() ) ? "a key not in provenanceKeys"
+                            : "project, system or environment";
+                    }
+                    getLog().info( "Provenance:   " + resolver.getSyntax().placeholder( 0, lookup.getKey() ) + "="
+                        + lookup.getValue() + " from " + from );
+                }
+                // the resolved value contains the plain text of the encrypted values it refers to
+                getLog().info( "Provenance:   resolves to "
+                    + ( decrypted ? "a value with decrypted parts, not shown" : value ) );
+            }
+            catch ( IllegalArgumentException e )
+            {
+                getLog().info( "Provenance:   " + e.getMessage() );
+            }
+            finally
+            {
+                resolver.recordTrace( null );
+            }
+        }
+    }
+
+    private void resolveProperties()
+        throws MojoExecutionException, MojoFailureException
+    {
+        Object event = PluginEvents.beginResolve();
+        Properties userProperties = session.getUserProperties();
+        boolean cached = cacheResolution && resolveOnly.length == 0 && decryptionKeystore == null;
+        // parallel executions share the session, so cached outcomes are computed on a copy that matches the fingerprint
+        Properties properties = cached ? (Properties) userProperties.clone() : userProperties;
+        PlaceholderIndex index = PlaceholderIndex.scan( properties, resolver.getSyntax() );
+        Properties environment = loadSystemEnvironmentPropertiesWhenDefined( index );
+
+        int expansions;
+        if ( resolveOnly.length > 0 )
+        {
+            expansions = resolveRequested( userProperties, environment );
+        }
+        else
+        {
+            List<String> keys = index.keysWithPlaceholders();
+            getLog().debug( keys.size() + " of " + index.size() + " properties contain placeholders" );
+
+            if ( cached )
+            {
+                expansions = resolvePropertiesCached( properties, keys, environment );
+            }
+            else
+            {
+                // values without placeholders resolve to themselves
+                for ( String k : keys )
+                {
+                    userProperties.setProperty( k, getPropertyValue( k, userProperties, environment ) );
+                }
+                expansions = keys.size();
+            }
+        }
+        PluginEvents.commitResolve( event, index.size(), expansions );
+    }
+
+    /**
+     * @return The number of properties that were expanded.
+     */
+    private int resolveRequested( Properties userProperties, Properties environment )
+        throws MojoFailureException
+    {
+        // requested keys are resolved in enumeration order, the order all keys are resolved in otherwise
+        Deque<String> pending = new ArrayDeque<String>();
+        for ( Enumeration<?> n = userProperties.propertyNames(); n.hasMoreElements(); )
+        {
+            String key = (String) n.nextElement();
+            if ( isRequested( key ) )
+            {
+                pending.add( key );
+            }
+        }
+        Set<String> visited = new HashSet<String>( pending );
+        int expansions = 0;
+
+        // the trace of a key includes the placeholders of every value it expands to, so its dependencies are all found
+        Map<String, String> trace = new LinkedHashMap<String, String>();
+        resolver.recordTrace( trace );
+        try
+        {
+            while ( !pending.isEmpty() )
+            {
+                String k = pending.poll();
+                if ( !resolver.getSyntax().containsPlaceholder( userProperties.getProperty( k ) ) )
+                {
+                    continue;
+                }
+                trace.clear();
+                userProperties.setProperty( k, getPropertyValue( k, userProperties, environment ) );
+                expansions++;
+                for ( String dependency : trace.keySet() )
+                {
+                    if ( userProperties.containsKey( dependency ) && visited.add( dependency ) )
+                    {
+                        pending.add( dependency );
+                    }
+                }
+            }
+        }
+        finally
+        {
+            resolver.recordTrace( null );
+        }
+        getLog().debug( "Resolved " + visited.size() + " of " + userProperties.size() + " properties" );
+        return expansions;
+    }
+
+    private boolean isRequested( String key )
+    {
+        for ( String pattern : resolveOnly )
+        {
+            if ( SelectorUtils.match( pattern, key ) )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param snapshot A copy of the session properties, which is resolved in place.
+     * @return The number of properties that were expanded, <code>0</code> if the outcome was cached.
+     */
+    private int resolvePropertiesCached( Properties snapshot, List<String> keys, Properties environment )
+        throws MojoFailureException
+    {
+        ResolutionCache cache = ResolutionCache.getInstance();
+        ResolutionCache.Fingerprint fingerprint = ResolutionCache.fingerprint( snapshot, resolver.getSyntax() );
+
+        Map<String, String> resolved = cache.get( fingerprint, resolver, projectProperties, environment );
+        if ( resolved != null )
+        {
+            session.getUserProperties().putAll( resolved );
+            getLog().debug( "Resolution cache hit: " + cache.statistics() );
+            return 0;
+        }
+
+        resolved = new HashMap<String, String>();
+        Map<String, String> externalLookups = new HashMap<String, String>();
+        resolver.recordExternalLookups( externalLookups );
+        try
+        {
+            for ( String k : keys )
+            {
+                String value = getPropertyValue( k, snapshot, environment );
+                if ( !value.equals( snapshot.getProperty( k ) ) )
+                {
+                    resolved.put( k, value );
+                }
+                snapshot.setProperty( k, value );
+            }
+        }
+        finally
+        {
+            resolver.recordExternalLookups( null );
+        }
+
+        cache.put( fingerprint, resolved, externalLookups );
+        session.getUserProperties().putAll( resolved );
+        getLog().debug( "Resolution cache miss: " + cache.statistics() );
+        return keys.size();
+    }
+
+    private Properties loadSystemEnvironmentPropertiesWhenDefined( PlaceholderIndex index )
+        throws MojoExecutionException
+    {
+        boolean useEnvVariables = index.usesEnvironment();
+        Properties environment = null;
+        if ( useEnvVariables )
+        {
+            try
+            {
+                environment = getSystemEnvVars();
+            }
+            catch ( IOException e )
+            {
+                throw new MojoExecutionException( "Error getting system environment variables: ", e );
+            }
+        }
+        return environment;
+    }
+
+    private String getPropertyValue( String k, Properties p, Properties environment )
+        throws MojoFailureException
+    {
+        try
+        {
+            return resolver.getPropertyValue( k, p, projectProperties, environment );
+        }
+        catch ( IllegalArgumentException e )
+        {
+            throw new MojoFailureException( e.getMessage() );
+        }
+    }
+
+    /**
+     * Override-able for test purposes.
+     *
+     * @return The shell environment variables, can be empty but never <code>null</code>.
+     * @throws IOException If the environment variables could not be queried from the shell.
+     */
+    Properties getSystemEnvVars()
+        throws IOException
     {
         return CommandLineUtils.getSystemEnvVars();
     }
 
+    /**
+     * Default scope for test access.
+     *
+     * @param readFilesMaxSize The maximum size of read files.
+     */
+    void setReadFilesMaxSize( long readFilesMaxSize )
+    {
+        this.readFilesMaxSize = readFilesMaxSize;
+    }
+
+    /**
+     * Default scope for test access.
+     *
+     * @param cacheResolution Set to <code>true</code> to cache resolution across executions.
+     */
+    void setCacheResolution( boolean cacheResolution )
+    {
+        this.cacheResolution = cacheResolution;
+    }
+
+    /**
+     * Default scope for test access.
+     *
+     * @param cacheSources Set to <code>true</code> to cache parsed files across executions.
+     */
+    void setCacheSources( boolean cacheSources )
+    {
+        this.cacheSources = cacheSources;
+    }
+
+    /**
+     * Default scope for test access.
+     *
+     * @param placeholderDelimiters The delimiters of placeholders.
+     */
+    void setPlaceholderDelimiters( String[] placeholderDelimiters )
+    {
+        this.placeholderDelimiters = placeholderDelimiters;
+    }
+
+    /**
+     * Default scope for test access.
+     *
+     * @param resolveOnly The keys to resolve.
+     */
+    void setResolveOnly( String[] resolveOnly )
+    {
+        this.resolveOnly = resolveOnly;
+    }
+
+    /**
+     * Default scope for test access.
+     *
+     * @param provenanceKeys The keys to log the origin and resolution of.
+     */
+    void setProvenanceKeys( String[] provenanceKeys )
+    {
+        this.provenanceKeys = provenanceKeys;
+    }
+
+    /**
+     * Default scope for test access.
+     *
+     * @return The origins of the keys read by the last execution, <code>null</code> unless provenance was tracked.
+     */
+    Provenance getProvenance()
+    {
+        return provenance;
+    }
+
     /**
      * Default scope for test access.
      *
@@ -404,6 +1331,42 @@ public class ReadPropertiesMojo
         this.quiet = quiet;
     }
 
+    /**
+     * Default scope for test access.
+     *
+     * @param checksums The expected SHA-256 digests of files or URLs.
+     */
+    void setChecksums( Properties checksums )
+    {
+        this.checksums = checksums;
+    }
+
+    /**
+     * Default scope for test access.
+     *
+     * @param decryptionKeystore The keystore of the key to decrypt values with.
+     * @param type The type of the keystore.
+     * @param password The password of the keystore and of the key.
+     * @param alias The alias of the key.
+     */
+    void setDecryptionKeystore( File decryptionKeystore, String type, String password, String alias )
+    {
+        this.decryptionKeystore = decryptionKeystore;
+        this.decryptionKeystoreType = type;
+        this.decryptionKeystorePassword = password;
+        this.decryptionKeyAlias = alias;
+    }
+
+    /**
+     * Default scope for test access.
+     *
+     * @param projectProperties The project properties.
+     */
+    void setProjectProperties( Properties projectProperties )
+    {
+        this.projectProperties = projectProperties;
+    }
+
     /**
      * Default scope for test access.
      *
@@ -414,12 +1377,44 @@ public class ReadPropertiesMojo
         this.session = session;
     }
 
+    /**
+     * Default scope for test access.
+     *
+     * @param basedir The project directory.
+     */
+    void setBasedir( File basedir )
+    {
+        this.basedir = basedir;
+    }
+
+    /**
+     * Default scope for test access.
+     *
+     * @param artifactHandlerManager The artifact handlers to map types with.
+     */
+    void setArtifactHandlerManager( ArtifactHandlerManager artifactHandlerManager )
+    {
+        this.artifactHandlerManager = artifactHandlerManager;
+    }
+
     private static abstract class Resource
     {
-        private InputStream stream;
+        private CountingInputStream stream;
+
+        private DigestInputStream digest;
+
+        private String expectedDigest;
 
         public abstract boolean canBeOpened();
 
+        /**
+         * @return The file name or URL path, which determines the format and compression.
+         */
+        public abstract String getName();
+
+        /**
+         * @return The content as stored, before it is decompressed according to its name.
+         */
         protected abstract InputStream openStream()
             throws IOException;
 
@@ -428,10 +1423,144 @@ public class ReadPropertiesMojo
         {
             if ( stream == null )
             {
-                stream = openStream();
+                InputStream stored = openStream();
+                if ( expectedDigest != null )
+                {
+                    digest = new DigestInputStream( stored, sha256() );
+                    stored = digest;
+                }
+                stream = new CountingInputStream( Compression.forName( getName() ).decompress( stored ) );
             }
             return stream;
         }
+
+        /**
+         * @param expectedDigest The expected SHA-256 digest of the stored content in lower case hexadecimal, or
+         *            <code>null</code> if it is not checked.
+         */
+        public void expectDigest( String expectedDigest )
+        {
+            this.expectedDigest = expectedDigest;
+        }
+
+        public boolean hasExpectedDigest()
+        {
+            return expectedDigest != null;
+        }
+
+        /**
+         * Digests the rest of the stored content, which a parser may not have read to its end, and closes the stream.
+         *
+         * @throws ChecksumMismatchException If the digest is not the expected one.
+         * @throws IOException If the content cannot be read.
+         */
+        public void verify()
+            throws IOException
+        {
+            if ( expectedDigest == null )
+            {
+                return;
+            }
+            InputStream stream = getInputStream();
+            try
+            {
+                byte[] buffer = new byte[8192];
+                while ( digest.read( buffer ) >= 0 )
+                {
+                    // digested while read
+                }
+            }
+            finally
+            {
+                stream.close();
+            }
+            StringBuilder actual = new StringBuilder();
+            for ( byte b : digest.getMessageDigest().digest() )
+            {
+                actual.append( Character.forDigit( ( b >> 4 ) & 0xF, 16 ) ).append( Character.forDigit( b & 0xF, 16 ) );
+            }
+            if ( !actual.toString().equals( expectedDigest ) )
+            {
+                throw new ChecksumMismatchException( "SHA-256 digest of " + this + " is " + actual + " but "
+                    + expectedDigest + " was expected" );
+            }
+        }
+
+        private static MessageDigest sha256()
+            throws IOException
+        {
+            try
+            {
+                return MessageDigest.getInstance( "SHA-256" );
+            }
+            catch ( NoSuchAlgorithmException e )
+            {
+                throw new IOException( "SHA-256 is not supported", e );
+            }
+        }
+
+        /**
+         * @return The number of bytes read from the stream so far, after decompression.
+         */
+        public long getBytesRead()
+        {
+            return stream != null ? stream.count : 0;
+        }
+    }
+
+    /**
+     * Thrown when the content of a resource is not what its checksum expects.
+     */
+    private static class ChecksumMismatchException
+        extends IOException
+    {
+        private static final long serialVersionUID = 1L;
+
+        ChecksumMismatchException( String message )
+        {
+            super( message );
+        }
+    }
+
+    private static class CountingInputStream
+        extends FilterInputStream
+    {
+        private long count;
+
+        CountingInputStream( InputStream in )
+        {
+            super( in );
+        }
+
+        public int read()
+            throws IOException
+        {
+            int b = super.read();
+            if ( b >= 0 )
+            {
+                count++;
+            }
+            return b;
+        }
+
+        public int read( byte[] b, int off, int len )
+            throws IOException
+        {
+            int n = super.read( b, off, len );
+            if ( n > 0 )
+            {
+                count += n;
+            }
+            return n;
+        }
+
+        public long skip( long n )
+            throws IOException
+        {
+            long skipped = super.skip( n );
+            count += skipped;
+            return skipped;
+        }
     }
 
     private static class FileResource
@@ -474,7 +1603,9 @@ public class ReadPropertiesMojo
     private static class UrlResource
         extends Resource
     {
-        private static final String CLASSPATH_PREFIX = "classpath:";
+        static final String CLASSPATH_PREFIX = "classpath:";
+
+        static final String CLASSPATH_ALL_PREFIX = "classpath*:";
 
         private static final String SLASH_PREFIX = "/";
 
@@ -484,17 +1615,27 @@ public class ReadPropertiesMojo
 
         private String classpathUrl;
 
-        public UrlResource( String url )
+        private Future<UrlFetcher.Body> body;
+
+        public UrlResource( URL url )
+        {
+            this.url = url;
+        }
+
+        /**
+         * @param url The URL, possibly of the form <code>classpath:path</code>.
+         * @param classpath The index to look up class path resources in, <code>null</code> if not a class path URL.
+         * @throws MojoExecutionException If the URL is malformed.
+         */
+        public UrlResource( String url, ClasspathIndex classpath )
             throws MojoExecutionException
         {
             if ( url.startsWith( CLASSPATH_PREFIX ) )
             {
-                String resource = url.substring( CLASSPATH_PREFIX.length(), url.length() );
-                if ( resource.startsWith( SLASH_PREFIX ) )
-                {
-                    resource = resource.substring( 1, resource.length() );
-                }
-                this.url = getClass().getClassLoader().getResource( resource );
+                String resource = stripClasspathPrefix( url, CLASSPATH_PREFIX );
+                URL indexed = classpath.find( resource );
+                // resources outside of the plugin's own class path are still found through the class loader
+                this.url = indexed != null ? indexed : getClass().getClassLoader().getResource( resource );
                 if ( this.url == null )
                 {
                     isMissingClasspathResouce = true;
@@ -514,6 +1655,46 @@ public class ReadPropertiesMojo
             }
         }
 
+        static UrlResource missing( String classpathUrl )
+        {
+            UrlResource resource = new UrlResource( (URL) null );
+            resource.isMissingClasspathResouce = true;
+            resource.classpathUrl = classpathUrl;
+            return resource;
+        }
+
+        static String stripClasspathPrefix( String url, String prefix )
+        {
+            String resource = url.substring( prefix.length(), url.length() );
+            if ( resource.startsWith( SLASH_PREFIX ) )
+            {
+                resource = resource.substring( 1, resource.length() );
+            }
+            return resource;
+        }
+
+        /**
+         * Starts reading the whole body into memory on the given executor.
+         *
+         * @param executor The executor to fetch on.
+         * @param fetcher The fetcher applying timeouts and retries.
+         */
+        public void prefetch( ExecutorService executor, final UrlFetcher fetcher )
+        {
+            if ( isMissingClasspathResouce )
+            {
+                return;
+            }
+            body = executor.submit( new Callable<UrlFetcher.Body>()
+            {
+                public UrlFetcher.Body call()
+                    throws IOException
+                {
+                    return fetcher.fetch( url );
+                }
+            } );
+        }
+
         public boolean canBeOpened()
         {
             if ( isMissingClasspathResouce )
@@ -522,7 +1703,14 @@ public class ReadPropertiesMojo
             }
             try
             {
-                openStream();
+                if ( body != null )
+                {
+                    prefetched();
+                }
+                else
+                {
+                    openStream().close();
+                }
             }
             catch ( IOException e )
             {
@@ -534,9 +1722,42 @@ public class ReadPropertiesMojo
         protected InputStream openStream()
             throws IOException
         {
+            if ( body != null )
+            {
+                UrlFetcher.Body fetched = prefetched();
+                InputStream stream = new ByteArrayInputStream( fetched.getBytes() );
+                return Compression.forContentEncoding( fetched.getContentEncoding() ).decompress( stream );
+            }
             return new BufferedInputStream( url.openStream() );
         }
 
+        private UrlFetcher.Body prefetched()
+            throws IOException
+        {
+            try
+            {
+                return body.get();
+            }
+            catch ( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException( "Interrupted while fetching " + url );
+            }
+            catch ( ExecutionException e )
+            {
+                if ( e.getCause() instanceof IOException )
+                {
+                    throw (IOException) e.getCause();
+                }
+                throw new IOException( "Error fetching " + url, e.getCause() );
+            }
+        }
+
+        public String getName()
+        {
+            return url != null ? url.getPath() : classpathUrl;
+        }
+
         public String toString()
         {
             if ( !isMissingClasspathResouce )
@@ -546,4 +1767,64 @@ public class ReadPropertiesMojo
             return classpathUrl;
         }
     }
+
+    private static class ArchiveResource
+        extends Resource
+    {
+        static final String ZIP_PREFIX = "zip:";
+
+        static final String ARTIFACT_PREFIX = "artifact:";
+
+        static final String ENTRY_SEPARATOR = "!/";
+
+        private final String url;
+
+        private final File archive;
+
+        private final String entry;
+
+        private final ArchiveCache archives;
+
+        public ArchiveResource( String url, File archive, String entry, ArchiveCache archives )
+        {
+            this.url = url;
+            this.archive = archive;
+            this.entry = entry;
+            this.archives = archives;
+        }
+
+        public boolean canBeOpened()
+        {
+            try
+            {
+                return archive.isFile() && archives.open( archive ).getEntry( entry ) != null;
+            }
+            catch ( IOException e )
+            {
+                return false;
+            }
+        }
+
+        public String getName()
+        {
+            return entry;
+        }
+
+        protected InputStream openStream()
+            throws IOException
+        {
+            ZipFile zip = archives.open( archive );
+            ZipEntry zipEntry = zip.getEntry( entry );
+            if ( zipEntry == null )
+            {
+                throw new FileNotFoundException( entry + " in " + archive );
+            }
+            return new BufferedInputStream( zip.getInputStream( zipEntry ) );
+        }
+
+        public String toString()
+        {
+            return url + " (" + archive + ")";
+        }
+    }
 }
@@ -0,0 +1,242 @@
+package org.codehaus.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Keeps the outcome of resolving the session properties in memory, so that executions that load the same properties
+ * again, in other modules or later builds in the same JVM, skip resolution.
+ * <p>
+ * An entry is keyed by a fingerprint of the session properties before resolution and stores the values resolution
+ * changed. It also stores every placeholder that was looked up outside of the session properties with the value it
+ * had, whichever namespace it came from: project properties, system properties or environment variables, and keys
+ * that were not defined anywhere. The entry is only used while all of them still have that value.
+ * The cache is an LRU bounded by number of entries and by total number of stored values.
+ */
+class ResolutionCache
+{
+    static final int MAX_ENTRIES = 64;
+
+    static final int MAX_WEIGHT = 1000000;
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private static ResolutionCache instance;
+
+    private final int maxEntries;
+
+    private final int maxWeight;
+
+    private final LinkedHashMap<Fingerprint, Entry> entries = new LinkedHashMap<Fingerprint, Entry>( 16, 0.75f, true );
+
+    private int weight;
+
+    private long hits;
+
+    private long misses;
+
+    private long evictions;
+
+    ResolutionCache( int maxEntries, int maxWeight )
+    {
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+    }
+
+    /**
+     * @return The cache shared by all executions in this JVM.
+     */
+    static synchronized ResolutionCache getInstance()
+    {
+        if ( instance == null )
+        {
+            instance = new ResolutionCache( MAX_ENTRIES, MAX_WEIGHT );
+        }
+        return instance;
+    }
+
+    /**
+     * @param properties The session properties before resolution.
+     * @return A fingerprint of all keys and values, independent of their order.
+     */
+    static Fingerprint fingerprint( Properties properties )
+    {
+        return fingerprint( properties, PlaceholderSyntax.DEFAULT );
+    }
+
+    /**
+     * @param properties The session properties before resolution.
+     * @param syntax The delimiters they are resolved with.
+     * @return A fingerprint of all keys and values and the delimiters, independent of the order of the properties.
+     */
+    static Fingerprint fingerprint( Properties properties, PlaceholderSyntax syntax )
+    {
+        long sum = 0;
+        long xor = hash( FNV_OFFSET_BASIS, syntax.toString() );
+        for ( Map.Entry<Object, Object> entry : properties.entrySet() )
+        {
+            long hash = hash( hash( FNV_OFFSET_BASIS, entry.getKey().toString() ) * FNV_PRIME,
+                              entry.getValue().toString() );
+            sum += hash;
+            xor ^= Long.rotateLeft( hash * 0x9E3779B97F4A7C15L, 31 );
+        }
+        return new Fingerprint( properties.size(), sum, xor );
+    }
+
+    private static long hash( long hash, String string )
+    {
+        for ( int i = 0; i < string.length(); i++ )
+        {
+            hash = ( hash ^ string.charAt( i ) ) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * @param fingerprint The fingerprint of the session properties before resolution.
+     * @param resolver The resolver to repeat the external lookups with.
+     * @param projectProperties The project properties.
+     * @param environment The environment variables, may be <code>null</code>.
+     * @return The values changed by resolution, or <code>null</code> if not cached or an external lookup now gives a
+     *         different value.
+     */
+    public synchronized Map<String, String> get( Fingerprint fingerprint, PropertyResolver resolver,
+                                                 Properties projectProperties, Properties environment )
+    {
+        Entry entry = entries.get( fingerprint );
+        if ( entry != null )
+        {
+            for ( Map.Entry<String, String> lookup : entry.externalLookups.entrySet() )
+            {
+                String value = resolver.fromProjectThenSystemThenEnvironment( lookup.getKey(), projectProperties,
+                                                                              environment );
+                if ( value == null ? lookup.getValue() != null : !value.equals( lookup.getValue() ) )
+                {
+                    entry = null;
+                    break;
+                }
+            }
+        }
+        if ( entry == null )
+        {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.resolved;
+    }
+
+    /**
+     * @param fingerprint The fingerprint of the session properties before resolution.
+     * @param resolved The values changed by resolution.
+     * @param externalLookups The placeholders looked up outside of the session properties, with their values.
+     */
+    public synchronized void put( Fingerprint fingerprint, Map<String, String> resolved,
+                                  Map<String, String> externalLookups )
+    {
+        Entry entry = new Entry( resolved, externalLookups );
+        if ( entry.weight() > maxWeight )
+        {
+            return;
+        }
+        Entry previous = entries.put( fingerprint, entry );
+        if ( previous != null )
+        {
+            weight -= previous.weight();
+        }
+        weight += entry.weight();
+
+        Iterator<Entry> eldest = entries.values().iterator();
+        while ( entries.size() > maxEntries || weight > maxWeight )
+        {
+            weight -= eldest.next().weight();
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * @return The hit, miss and eviction counts for logging.
+     */
+    public synchronized String statistics()
+    {
+        return entries.size() + " entries, " + weight + " values, " + hits + " hits, " + misses + " misses, "
+            + evictions + " evictions";
+    }
+
+    /**
+     * Identifies a set of properties.
+     */
+    static final class Fingerprint
+    {
+        private final int size;
+
+        private final long sum;
+
+        private final long xor;
+
+        private Fingerprint( int size, long sum, long xor )
+        {
+            this.size = size;
+            this.sum = sum;
+            this.xor = xor;
+        }
+
+        public boolean equals( Object obj )
+        {
+            if ( !( obj instanceof Fingerprint ) )
+            {
+                return false;
+            }
+            Fingerprint other = (Fingerprint) obj;
+            return size == other.size && sum == other.sum && xor == other.xor;
+        }
+
+        public int hashCode()
+        {
+            return (int) ( sum ^ ( sum >>> 32 ) ) * 31 + size;
+        }
+    }
+
+    private static class Entry
+    {
+        private final Map<String, String> resolved;
+
+        private final Map<String, String> externalLookups;
+
+        private Entry( Map<String, String> resolved, Map<String, String> externalLookups )
+        {
+            this.resolved = resolved;
+            this.externalLookups = externalLookups;
+        }
+
+        private int weight()
+        {
+            return 1 + resolved.size() + externalLookups.size();
+        }
+    }
+}
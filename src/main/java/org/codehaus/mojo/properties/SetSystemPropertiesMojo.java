@@ -78,4 +78,14 @@ public class SetSystemPropertiesMojo
 
         getLog().info( "Set " + count + " system " + ( count > 1 ? "properties" : "property" ) );
     }
+
+    /**
+     * Default scope for test access.
+     *
+     * @param properties The system properties to set.
+     */
+    void setProperties( Properties properties )
+    {
+        this.properties = properties;
+    }
 }
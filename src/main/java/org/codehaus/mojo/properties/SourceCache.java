@@ -0,0 +1,419 @@
+package org.codehaus.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Keeps parsed property files in memory across executions, which pays off in long-lived JVMs such as the Maven daemon.
+ * The directories of cached files are watched and entries are dropped as soon as a change is reported, so unchanged
+ * files are never read again. The cache is a bounded LRU by number of files and total number of properties.
+ * <p>
+ * Events arrive late on some platforms (the polling watcher on macOS takes seconds) and not at all on others (e.g.
+ * network mounts), so every hit also compares the size and last modified time of the file with those it had before
+ * it was parsed. When events were lost, the whole cache is dropped.
+ */
+class SourceCache
+{
+    static final int MAX_ENTRIES = 256;
+
+    static final int MAX_PROPERTIES = 1000000;
+
+    private static SourceCache instance;
+
+    private final int maxEntries;
+
+    private final int maxProperties;
+
+    private final LinkedHashMap<Path, Entry> entries = new LinkedHashMap<Path, Entry>( 16, 0.75f, true );
+
+    private final Map<Path, WatchedDirectory> directories = new HashMap<Path, WatchedDirectory>();
+
+    private int properties;
+
+    private long clock;
+
+    private long hits;
+
+    private long misses;
+
+    private long evictions;
+
+    private WatchService watcher;
+
+    SourceCache( int maxEntries, int maxProperties )
+    {
+        this.maxEntries = maxEntries;
+        this.maxProperties = maxProperties;
+    }
+
+    /**
+     * @return The cache shared by all executions in this JVM.
+     */
+    static synchronized SourceCache getInstance()
+    {
+        if ( instance == null )
+        {
+            instance = new SourceCache( MAX_ENTRIES, MAX_PROPERTIES );
+        }
+        return instance;
+    }
+
+    /**
+     * @param file The file.
+     * @return The properties parsed from the file, or <code>null</code> if not cached or changed since. The returned
+     *         properties must not be modified.
+     */
+    public Properties get( Path file )
+    {
+        Path key = key( file );
+        FileState state = FileState.of( key );
+        synchronized ( this )
+        {
+            Entry cached = entries.get( key );
+            if ( cached != null && !cached.state.equals( state ) )
+            {
+                // changed, but the event has not arrived yet or never will
+                entries.remove( key );
+                removed( key, cached );
+                cached = null;
+            }
+            if ( cached != null )
+            {
+                hits++;
+                return cached.parsed;
+            }
+            misses++;
+            return null;
+        }
+    }
+
+    /**
+     * Caches the properties of a file, unless a change was reported since {@link #watch(Path)} returned the stamp.
+     *
+     * @param file The file.
+     * @param parsed The properties parsed from the file, which must not be modified afterwards.
+     * @param stamp The stamp returned by {@link #watch(Path)} before the file was parsed.
+     */
+    public synchronized void put( Path file, Properties parsed, Stamp stamp )
+    {
+        Path key = key( file );
+        WatchedDirectory directory = directories.get( key.getParent() );
+        if ( directory == null || directory.registered > stamp.clock || directory.changed > stamp.clock
+            || stamp.state == null || parsed.size() > maxProperties )
+        {
+            // changed while it was parsed, or not watched all along so changes could have been missed
+            return;
+        }
+        Entry previous = entries.put( key, new Entry( parsed, stamp.state ) );
+        if ( previous != null )
+        {
+            properties -= previous.parsed.size();
+        }
+        else
+        {
+            directory.files++;
+        }
+        properties += parsed.size();
+        evict();
+    }
+
+    /**
+     * Starts watching the directory of a file, which must be done before the file is parsed.
+     *
+     * @param file The file.
+     * @return The stamp to pass to {@link #put(Path, Properties, Stamp)}.
+     * @throws IOException If the directory cannot be watched.
+     */
+    public Stamp watch( Path file )
+        throws IOException
+    {
+        Path key = key( file );
+        // taken before the file is parsed, so a change during parsing makes the entry miss
+        FileState state = FileState.of( key );
+        synchronized ( this )
+        {
+            return new Stamp( register( key.getParent() ), state );
+        }
+    }
+
+    private long register( Path directory )
+        throws IOException
+    {
+        long stamp = ++clock;
+        if ( directories.containsKey( directory ) )
+        {
+            return stamp;
+        }
+        if ( watcher == null )
+        {
+            watcher = FileSystems.getDefault().newWatchService();
+            Thread thread = new Thread( new Runnable()
+            {
+                public void run()
+                {
+                    processEvents();
+                }
+            }, "properties-source-cache-watcher" );
+            thread.setDaemon( true );
+            thread.start();
+        }
+        WatchKey watchKey =
+            directory.register( watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE,
+                                StandardWatchEventKinds.ENTRY_MODIFY );
+        directories.put( directory, new WatchedDirectory( watchKey, stamp ) );
+        return stamp;
+    }
+
+    /**
+     * @return The hit, miss and eviction counts for logging.
+     */
+    public synchronized String statistics()
+    {
+        return entries.size() + " files, " + properties + " properties, " + hits + " hits, " + misses + " misses, "
+            + evictions + " evictions";
+    }
+
+    private void evict()
+    {
+        Iterator<Map.Entry<Path, Entry>> eldest = entries.entrySet().iterator();
+        while ( ( entries.size() > maxEntries || properties > maxProperties ) && eldest.hasNext() )
+        {
+            Map.Entry<Path, Entry> entry = eldest.next();
+            eldest.remove();
+            removed( entry.getKey(), entry.getValue() );
+            evictions++;
+        }
+        // directories that were registered but never got an entry
+        for ( Iterator<WatchedDirectory> watched = directories.values().iterator(); watched.hasNext(); )
+        {
+            WatchedDirectory directory = watched.next();
+            if ( directory.files == 0 )
+            {
+                directory.watchKey.cancel();
+                watched.remove();
+            }
+        }
+    }
+
+    private void removed( Path file, Entry entry )
+    {
+        properties -= entry.parsed.size();
+        WatchedDirectory directory = directories.get( file.getParent() );
+        if ( directory != null && --directory.files == 0 )
+        {
+            directory.watchKey.cancel();
+            directories.remove( file.getParent() );
+        }
+    }
+
+    private synchronized void invalidate( Path directory, Path name )
+    {
+        WatchedDirectory watched = directories.get( directory );
+        if ( watched != null )
+        {
+            watched.changed = ++clock;
+        }
+        if ( name == null )
+        {
+            // the directory is no longer watchable
+            for ( Iterator<Map.Entry<Path, Entry>> i = entries.entrySet().iterator(); i.hasNext(); )
+            {
+                Map.Entry<Path, Entry> entry = i.next();
+                if ( directory.equals( entry.getKey().getParent() ) )
+                {
+                    i.remove();
+                    removed( entry.getKey(), entry.getValue() );
+                }
+            }
+            return;
+        }
+        Path file = directory.resolve( name );
+        Entry entry = entries.remove( file );
+        if ( entry != null )
+        {
+            removed( file, entry );
+        }
+    }
+
+    /**
+     * Drops every entry, after events were lost. Default scope for test access.
+     */
+    synchronized void invalidateAll()
+    {
+        long changed = ++clock;
+        for ( WatchedDirectory directory : directories.values() )
+        {
+            directory.changed = changed;
+        }
+        for ( Iterator<Map.Entry<Path, Entry>> i = entries.entrySet().iterator(); i.hasNext(); )
+        {
+            Map.Entry<Path, Entry> entry = i.next();
+            i.remove();
+            removed( entry.getKey(), entry.getValue() );
+        }
+    }
+
+    private void processEvents()
+    {
+        try
+        {
+            while ( true )
+            {
+                WatchKey watchKey = watcher.take();
+                Path directory = (Path) watchKey.watchable();
+                for ( WatchEvent<?> event : watchKey.pollEvents() )
+                {
+                    if ( event.kind() == StandardWatchEventKinds.OVERFLOW )
+                    {
+                        // the lost events may have been for any watched directory
+                        invalidateAll();
+                    }
+                    else
+                    {
+                        invalidate( directory, (Path) event.context() );
+                    }
+                }
+                if ( !watchKey.reset() )
+                {
+                    invalidate( directory, null );
+                }
+            }
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+        }
+        catch ( ClosedWatchServiceException e )
+        {
+            // shut down
+        }
+    }
+
+    private static Path key( Path file )
+    {
+        return file.toAbsolutePath().normalize();
+    }
+
+    /**
+     * Identifies the state of a directory and a file before the file was parsed.
+     */
+    static final class Stamp
+    {
+        private final long clock;
+
+        private final FileState state;
+
+        private Stamp( long clock, FileState state )
+        {
+            this.clock = clock;
+            this.state = state;
+        }
+    }
+
+    /**
+     * The size and last modified time of a file.
+     */
+    private static final class FileState
+    {
+        private final long size;
+
+        private final FileTime lastModified;
+
+        private FileState( long size, FileTime lastModified )
+        {
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        /**
+         * @return The state of the file, or <code>null</code> if it cannot be read.
+         */
+        static FileState of( Path file )
+        {
+            try
+            {
+                BasicFileAttributes attributes = Files.readAttributes( file, BasicFileAttributes.class );
+                return new FileState( attributes.size(), attributes.lastModifiedTime() );
+            }
+            catch ( IOException e )
+            {
+                return null;
+            }
+        }
+
+        public boolean equals( Object other )
+        {
+            return other instanceof FileState && size == ( (FileState) other ).size
+                && lastModified.equals( ( (FileState) other ).lastModified );
+        }
+
+        public int hashCode()
+        {
+            return (int) size * 31 + lastModified.hashCode();
+        }
+    }
+
+    private static class Entry
+    {
+        private final Properties parsed;
+
+        private final FileState state;
+
+        private Entry( Properties parsed, FileState state )
+        {
+            this.parsed = parsed;
+            this.state = state;
+        }
+    }
+
+    private static class WatchedDirectory
+    {
+        private final WatchKey watchKey;
+
+        private final long registered;
+
+        private long changed;
+
+        private int files;
+
+        private WatchedDirectory( WatchKey watchKey, long registered )
+        {
+            this.watchKey = watchKey;
+            this.registered = registered;
+        }
+    }
+}
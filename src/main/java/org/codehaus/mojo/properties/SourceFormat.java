@@ -0,0 +1,91 @@
+package org.codehaus.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * The formats property sources can be read from, chosen by file extension.
+ */
+enum SourceFormat
+{
+    PROPERTIES
+    {
+        public void load( InputStream stream, Properties target )
+            throws IOException
+        {
+            target.load( stream );
+        }
+    },
+    JSON
+    {
+        public void load( InputStream stream, Properties target )
+            throws IOException
+        {
+            JsonFlattener.load( stream, target );
+        }
+    },
+    YAML
+    {
+        public void load( InputStream stream, Properties target )
+            throws IOException
+        {
+            YamlFlattener.load( stream, target );
+        }
+    };
+
+    /**
+     * @param stream The source, already decompressed.
+     * @param target The properties to add the properties of the source to.
+     * @throws IOException If the source could not be read or parsed.
+     */
+    public abstract void load( InputStream stream, Properties target )
+        throws IOException;
+
+    /**
+     * @param name A file name or URL path, possibly with a compression extension such as <code>.gz</code>.
+     * @return The format implied by the extension, {@link #PROPERTIES} unless it is a JSON or YAML extension.
+     */
+    public static SourceFormat forName( String name )
+    {
+        if ( name == null )
+        {
+            return PROPERTIES;
+        }
+        String lowerCase = name.toLowerCase( Locale.ENGLISH );
+        if ( Compression.forName( lowerCase ) != Compression.NONE )
+        {
+            lowerCase = lowerCase.substring( 0, lowerCase.lastIndexOf( '.' ) );
+        }
+        if ( lowerCase.endsWith( ".json" ) )
+        {
+            return JSON;
+        }
+        if ( lowerCase.endsWith( ".yaml" ) || lowerCase.endsWith( ".yml" ) )
+        {
+            return YAML;
+        }
+        return PROPERTIES;
+    }
+}
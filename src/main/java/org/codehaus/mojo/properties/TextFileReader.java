@@ -0,0 +1,128 @@
+package org.codehaus.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Reads whole files as text, like <code>Files.readAllBytes</code> and <code>new String( bytes, charset )</code> would,
+ * so the raw bytes and the text are both held for a moment. Files over a size limit are rejected before anything is
+ * read, and the read stops at the limit if the file grows meanwhile. The file is not memory mapped, which on Windows
+ * would keep it locked until the mapping is garbage collected.
+ */
+final class TextFileReader
+{
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    private TextFileReader()
+    {
+    }
+
+    /**
+     * @param file The file.
+     * @param charset The encoding of the file, malformed input is replaced.
+     * @param maxSize The maximum size in bytes, <code>0</code> or less for no limit.
+     * @return The text.
+     * @throws FileTooLargeException If the file is larger than allowed.
+     * @throws IOException If the file could not be read.
+     */
+    static String read( Path file, Charset charset, long maxSize )
+        throws IOException
+    {
+        long limit = maxSize > 0 ? Math.min( maxSize, MAX_ARRAY_SIZE ) : MAX_ARRAY_SIZE;
+        InputStream stream = Files.newInputStream( file );
+        try
+        {
+            long size = Files.size( file );
+            if ( size > limit )
+            {
+                throw tooLarge( file, size, maxSize );
+            }
+            return new String( read( stream, (int) size, (int) limit, file, maxSize ), charset );
+        }
+        finally
+        {
+            stream.close();
+        }
+    }
+
+    /**
+     * @return The bytes up to the end of the stream, which may differ from the size if the file changed meanwhile.
+     */
+    private static byte[] read( InputStream stream, int size, int limit, Path file, long maxSize )
+        throws IOException
+    {
+        byte[] bytes = new byte[size];
+        int length = 0;
+        while ( true )
+        {
+            int read = stream.read( bytes, length, bytes.length - length );
+            if ( read < 0 )
+            {
+                return length == bytes.length ? bytes : Arrays.copyOf( bytes, length );
+            }
+            length += read;
+            if ( length == bytes.length )
+            {
+                // the file grew, or is exactly as large as the buffer
+                int next = stream.read();
+                if ( next < 0 )
+                {
+                    return bytes;
+                }
+                if ( length >= limit )
+                {
+                    throw tooLarge( file, length + 1L, maxSize );
+                }
+                bytes = Arrays.copyOf( bytes, (int) Math.min( Math.max( 8192L, 2L * length ), limit ) );
+                bytes[length++] = (byte) next;
+            }
+        }
+    }
+
+    private static FileTooLargeException tooLarge( Path file, long size, long maxSize )
+    {
+        if ( maxSize > 0 && size > maxSize )
+        {
+            return new FileTooLargeException( file + " has " + size + " bytes, more than the maximum of " + maxSize );
+        }
+        return new FileTooLargeException( file + " has " + size + " bytes, too many for a single value" );
+    }
+
+    /**
+     * Thrown when a file exceeds the size limit.
+     */
+    static class FileTooLargeException
+        extends IOException
+    {
+        private static final long serialVersionUID = 1L;
+
+        FileTooLargeException( String message )
+        {
+            super( message );
+        }
+    }
+}
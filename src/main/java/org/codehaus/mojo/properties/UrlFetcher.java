@@ -0,0 +1,238 @@
+package org.codehaus.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.plexus.util.IOUtil;
+
+/**
+ * Reads the body of a URL with connect and read timeouts, retrying transient failures with exponential backoff.
+ * <p>
+ * Bodies and error bodies are always read to the end and closed rather than disconnected, which allows the JDK to keep
+ * HTTP connections alive and reuse them for further URLs on the same host.
+ */
+class UrlFetcher
+{
+    private final int connectTimeout;
+
+    private final int readTimeout;
+
+    private final int retries;
+
+    private final long retryBackoff;
+
+    private final Log log;
+
+    /**
+     * @param connectTimeout The connect timeout in milliseconds, <code>0</code> waits forever.
+     * @param readTimeout The read timeout in milliseconds, <code>0</code> waits forever.
+     * @param retries The number of times a failed fetch is retried.
+     * @param retryBackoff The delay in milliseconds before the first retry, doubled for every further retry.
+     * @param log The log to report latency and retries to.
+     */
+    UrlFetcher( int connectTimeout, int readTimeout, int retries, long retryBackoff, Log log )
+    {
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+        this.retries = retries;
+        this.retryBackoff = retryBackoff;
+        this.log = log;
+    }
+
+    /**
+     * @param url The URL to read.
+     * @return The complete body, still in its transfer encoding.
+     * @throws FileNotFoundException If the resource does not exist, this is never retried.
+     * @throws IOException If the body could not be read within the configured number of attempts.
+     */
+    public Body fetch( URL url )
+        throws IOException
+    {
+        long start = System.nanoTime();
+        long backoff = retryBackoff;
+        Object event = PluginEvents.beginFetch();
+        for ( int attempt = 1;; attempt++ )
+        {
+            try
+            {
+                Body body = fetchOnce( url );
+                PluginEvents.commitFetch( event, url.toString(), body.getBytes().length, attempt );
+                if ( log.isDebugEnabled() )
+                {
+                    long millis = TimeUnit.NANOSECONDS.toMillis( System.nanoTime() - start );
+                    log.debug( "Fetched " + body.getBytes().length + " bytes from " + url + " in " + millis + " ms ("
+                        + attempt + ( attempt > 1 ? " attempts)" : " attempt)" ) );
+                }
+                return body;
+            }
+            catch ( IOException e )
+            {
+                if ( attempt > retries || !isRetryable( e ) )
+                {
+                    PluginEvents.commitFetch( event, url.toString(), -1, attempt );
+                    throw e;
+                }
+                log.warn( "Fetching " + url + " failed (" + e + "), retrying in " + backoff + " ms" );
+                sleep( backoff );
+                backoff *= 2;
+            }
+        }
+    }
+
+    private Body fetchOnce( URL url )
+        throws IOException
+    {
+        URLConnection connection = url.openConnection();
+        connection.setConnectTimeout( connectTimeout );
+        connection.setReadTimeout( readTimeout );
+        if ( connection instanceof HttpURLConnection )
+        {
+            HttpURLConnection http = (HttpURLConnection) connection;
+            http.setRequestProperty( "Accept-Encoding", "gzip, deflate" );
+            int status = http.getResponseCode();
+            if ( status >= HttpURLConnection.HTTP_BAD_REQUEST )
+            {
+                drain( http.getErrorStream() );
+                if ( status == HttpURLConnection.HTTP_NOT_FOUND || status == HttpURLConnection.HTTP_GONE )
+                {
+                    throw new FileNotFoundException( url.toString() );
+                }
+                throw new HttpStatusException( url, status );
+            }
+        }
+        InputStream stream = connection.getInputStream();
+        try
+        {
+            return new Body( IOUtil.toByteArray( stream ), connection.getContentEncoding() );
+        }
+        finally
+        {
+            stream.close();
+        }
+    }
+
+    /**
+     * Only failures that may go away by themselves are retried: timeouts, connections reset or dropped by the server,
+     * server errors and throttling. Unknown hosts, refused connections, TLS failures and other client errors are not.
+     */
+    static boolean isRetryable( IOException e )
+    {
+        if ( e instanceof HttpStatusException )
+        {
+            int status = ( (HttpStatusException) e ).status;
+            return status >= HttpURLConnection.HTTP_INTERNAL_ERROR || status == HttpURLConnection.HTTP_CLIENT_TIMEOUT
+                || status == 429;
+        }
+        if ( e instanceof SocketTimeoutException )
+        {
+            return true;
+        }
+        // subclasses report that no connection could be made at all
+        return e.getClass() == SocketException.class;
+    }
+
+    private static void drain( InputStream stream )
+        throws IOException
+    {
+        if ( stream != null )
+        {
+            try
+            {
+                IOUtil.toByteArray( stream );
+            }
+            finally
+            {
+                stream.close();
+            }
+        }
+    }
+
+    private static void sleep( long millis )
+        throws InterruptedIOException
+    {
+        try
+        {
+            Thread.sleep( millis );
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException( "Interrupted while waiting to retry" );
+        }
+    }
+
+    /**
+     * The raw body of a URL.
+     */
+    static class Body
+    {
+        private final byte[] bytes;
+
+        private final String contentEncoding;
+
+        Body( byte[] bytes, String contentEncoding )
+        {
+            this.bytes = bytes;
+            this.contentEncoding = contentEncoding;
+        }
+
+        /**
+         * @return The body as transferred, i.e. still compressed if a content encoding was applied.
+         */
+        public byte[] getBytes()
+        {
+            return bytes;
+        }
+
+        /**
+         * @return The <code>Content-Encoding</code> of the response, or <code>null</code>.
+         */
+        public String getContentEncoding()
+        {
+            return contentEncoding;
+        }
+    }
+
+    private static class HttpStatusException
+        extends IOException
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final int status;
+
+        private HttpStatusException( URL url, int status )
+        {
+            super( "Server returned HTTP response code " + status + " for URL " + url );
+            this.status = status;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package org.codehaus.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the executors used for background I/O. Virtual threads are used when the running JDK provides them (21 and
+ * later), otherwise a small pool of daemon threads is used.
+ */
+final class WorkerPools
+{
+    /**
+     * Upper bound for the platform thread fallback; background work is I/O bound so a handful of threads is enough.
+     */
+    static final int MAX_PLATFORM_THREADS = 4;
+
+    private WorkerPools()
+    {
+    }
+
+    /**
+     * @param name The prefix for the names of the threads when platform threads are used.
+     * @param tasks The number of tasks that are expected to be submitted.
+     * @return A new executor, which must be shut down by the caller.
+     */
+    static ExecutorService newWorkerPool( String name, int tasks )
+    {
+        ExecutorService executor = newVirtualThreadPerTaskExecutor();
+        if ( executor == null )
+        {
+            int threads = Math.max( 1, Math.min( tasks, MAX_PLATFORM_THREADS ) );
+            executor = Executors.newFixedThreadPool( threads, new DaemonThreadFactory( name ) );
+        }
+        return executor;
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor()
+    {
+        try
+        {
+            Method factory = Executors.class.getMethod( "newVirtualThreadPerTaskExecutor" );
+            return (ExecutorService) factory.invoke( null );
+        }
+        catch ( ReflectiveOperationException e )
+        {
+            // not available (older JDK) or still a preview feature that has not been enabled
+            return null;
+        }
+    }
+
+    private static class DaemonThreadFactory
+        implements ThreadFactory
+    {
+        private final AtomicInteger count = new AtomicInteger();
+
+        private final String name;
+
+        private DaemonThreadFactory( String name )
+        {
+            this.name = name;
+        }
+
+        public Thread newThread( Runnable runnable )
+        {
+            Thread thread = new Thread( runnable, name + "-" + count.incrementAndGet() );
+            thread.setDaemon( true );
+            return thread;
+        }
+    }
+}
@@ -46,6 +46,7 @@ import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.project.MavenProject;
 
 /**
  * Writes project properties to a file.
@@ -62,8 +63,19 @@ public class WriteProjectProperties
         throws MojoExecutionException, MojoFailureException
     {
         validateOutputFile();
+        Properties projProperties = projectProperties( getProject() );
+
+        writeProperties( projProperties, getOutputFile() );
+    }
+
+    /**
+     * @param project The project.
+     * @return A copy of the project properties, with system properties taking precedence for keys the project defines.
+     */
+    static Properties projectProperties( MavenProject project )
+    {
         Properties projProperties = new Properties();
-        projProperties.putAll( getProject().getProperties() );
+        projProperties.putAll( project.getProperties() );
 
         Properties systemProperties = System.getProperties();
 
@@ -79,7 +91,6 @@ public class WriteProjectProperties
             }
 
         }
-
-        writeProperties( projProperties, getOutputFile() );
+        return projProperties;
     }
 }
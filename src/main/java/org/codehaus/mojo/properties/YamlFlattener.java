@@ -0,0 +1,197 @@
+package org.codehaus.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Properties;
+
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.error.YAMLException;
+import org.yaml.snakeyaml.events.Event;
+import org.yaml.snakeyaml.events.ScalarEvent;
+
+/**
+ * Reads a YAML document as a stream of parser events and flattens it into properties as it goes, without building a
+ * tree. Keys are flattened like {@link JsonFlattener} does. Since no tree is kept, aliases cannot be resolved and are
+ * rejected. Later documents of a multi-document stream override earlier ones.
+ */
+class YamlFlattener
+{
+    private final Properties target;
+
+    private final StringBuilder path = new StringBuilder();
+
+    private final Deque<Frame> frames = new ArrayDeque<Frame>();
+
+    private YamlFlattener( Properties target )
+    {
+        this.target = target;
+    }
+
+    /**
+     * @param stream The UTF-8 encoded document, whose root must be a mapping.
+     * @param target The properties to add the flattened values to.
+     * @throws IOException If the stream could not be read or is not valid YAML.
+     */
+    static void load( InputStream stream, Properties target )
+        throws IOException
+    {
+        YamlFlattener flattener = new YamlFlattener( target );
+        try
+        {
+            for ( Event event : new Yaml().parse( new InputStreamReader( stream, StandardCharsets.UTF_8 ) ) )
+            {
+                flattener.handle( event );
+            }
+        }
+        catch ( YAMLException e )
+        {
+            throw new IOException( "Invalid YAML: " + e.getMessage(), e );
+        }
+    }
+
+    private void handle( Event event )
+        throws IOException
+    {
+        switch ( event.getEventId() )
+        {
+            case MappingStart:
+                startValue( event );
+                frames.push( new Frame( true, path.length() ) );
+                break;
+            case SequenceStart:
+                startValue( event );
+                frames.push( new Frame( false, path.length() ) );
+                break;
+            case MappingEnd:
+            case SequenceEnd:
+                frames.pop();
+                endValue();
+                break;
+            case Scalar:
+                scalar( (ScalarEvent) event );
+                break;
+            case Alias:
+                throw new IOException( "Aliases are not supported " + event.getStartMark() );
+            default:
+                // stream and document boundaries, comments
+                break;
+        }
+    }
+
+    private void scalar( ScalarEvent event )
+        throws IOException
+    {
+        Frame frame = frames.peek();
+        if ( frame == null && isNull( event ) )
+        {
+            // an empty document
+            return;
+        }
+        if ( frame != null && frame.mapping && frame.expectingKey )
+        {
+            path.setLength( frame.pathLength );
+            if ( frame.pathLength > 0 )
+            {
+                path.append( '.' );
+            }
+            path.append( event.getValue() );
+            frame.expectingKey = false;
+            return;
+        }
+        startValue( event );
+        target.setProperty( path.toString(), isNull( event ) ? "" : event.getValue() );
+        endValue();
+    }
+
+    private void startValue( Event event )
+        throws IOException
+    {
+        Frame frame = frames.peek();
+        if ( frame == null )
+        {
+            if ( !event.is( Event.ID.MappingStart ) )
+            {
+                throw new IOException( "The root of a YAML document must be a mapping " + event.getStartMark() );
+            }
+            path.setLength( 0 );
+        }
+        else if ( frame.mapping && frame.expectingKey )
+        {
+            throw new IOException( "Only scalar keys are supported " + event.getStartMark() );
+        }
+        else if ( !frame.mapping )
+        {
+            path.setLength( frame.pathLength );
+            path.append( '[' ).append( frame.index ).append( ']' );
+        }
+    }
+
+    private void endValue()
+    {
+        Frame frame = frames.peek();
+        if ( frame == null )
+        {
+            return;
+        }
+        if ( frame.mapping )
+        {
+            frame.expectingKey = true;
+        }
+        else
+        {
+            frame.index++;
+        }
+        path.setLength( frame.pathLength );
+    }
+
+    private static boolean isNull( ScalarEvent event )
+    {
+        String value = event.getValue();
+        return event.isPlain() && ( value.length() == 0 || "~".equals( value ) || "null".equals( value )
+            || "Null".equals( value ) || "NULL".equals( value ) );
+    }
+
+    /**
+     * A mapping or sequence that is being read.
+     */
+    private static class Frame
+    {
+        private final boolean mapping;
+
+        private final int pathLength;
+
+        private boolean expectingKey = true;
+
+        private int index;
+
+        private Frame( boolean mapping, int pathLength )
+        {
+            this.mapping = mapping;
+            this.pathLength = pathLength;
+        }
+    }
+}
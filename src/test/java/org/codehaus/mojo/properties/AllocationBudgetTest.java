@@ -0,0 +1,213 @@
+package org.codehaus.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+import org.apache.maven.execution.MavenSession;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Fails when the loaders or the resolver allocate more per property than they used to, so that changes that
+ * multiply garbage on large configurations are caught by a plain test run. Budgets are bytes per property with
+ * generous headroom over what is measured, each operation is run once before it is measured so that class loading
+ * and the first compilations are not counted, and allocation is measured on the test thread only.
+ */
+public class AllocationBudgetTest
+{
+    private static com.sun.management.ThreadMXBean threads;
+
+    @BeforeClass
+    public static void checkAllocationMeasurement()
+    {
+        Assume.assumeTrue( ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean );
+        threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue( threads.isThreadAllocatedMemorySupported() );
+        threads.setThreadAllocatedMemoryEnabled( true );
+    }
+
+    @Test
+    public void parsingStaysWithinBudget()
+        throws Exception
+    {
+        assertParseBudget( 10000, 400 );
+        assertParseBudget( 100000, 400 );
+    }
+
+    @Test
+    public void placeholderIndexStaysWithinBudget()
+    {
+        assertIndexBudget( 10000, 300 );
+        assertIndexBudget( 100000, 300 );
+    }
+
+    @Test
+    public void resolutionStaysWithinBudget()
+    {
+        assertResolutionBudget( 10000, 1500 );
+        assertResolutionBudget( 100000, 1500 );
+    }
+
+    @Test
+    public void readingAndResolvingStaysWithinBudget()
+        throws Exception
+    {
+        assertExecutionBudget( 10000, 1200 );
+        assertExecutionBudget( 100000, 1200 );
+    }
+
+    private void assertParseBudget( int size, long budget )
+        throws Exception
+    {
+        final byte[] content = text( dataset( size ) );
+        long perKey = measure( size, new Operation()
+        {
+            public void run()
+                throws Exception
+            {
+                SourceFormat.PROPERTIES.load( new ByteArrayInputStream( content ), new Properties() );
+            }
+        } );
+        assertWithinBudget( "parsing", size, perKey, budget );
+    }
+
+    private void assertIndexBudget( int size, long budget )
+    {
+        final Properties properties = dataset( size );
+        long perKey = measure( size, new Operation()
+        {
+            public void run()
+            {
+                PlaceholderIndex.scan( properties, PlaceholderSyntax.DEFAULT );
+            }
+        } );
+        assertWithinBudget( "indexing", size, perKey, budget );
+    }
+
+    private void assertResolutionBudget( int size, long budget )
+    {
+        final Properties properties = dataset( size );
+        final Properties projectProperties = new Properties();
+        final PropertyResolver resolver = new PropertyResolver();
+        long perKey = measure( size, new Operation()
+        {
+            public void run()
+            {
+                for ( String key : properties.stringPropertyNames() )
+                {
+                    resolver.getPropertyValue( key, properties, projectProperties, null );
+                }
+            }
+        } );
+        assertWithinBudget( "resolution", size, perKey, budget );
+    }
+
+    private void assertExecutionBudget( final int size, long budget )
+        throws Exception
+    {
+        Path file = Files.createTempFile( "allocation", ".properties" );
+        Files.write( file, text( dataset( size ) ) );
+        final File[] files = { file.toFile() };
+        try
+        {
+            long perKey = measure( size, new Operation()
+            {
+                @SuppressWarnings( "deprecation" )
+                public void run()
+                    throws Exception
+                {
+                    ReadPropertiesMojo mojo = new ReadPropertiesMojo();
+                    mojo.setSession( new MavenSession( null, null, null, null, null, null, null, null,
+                                                       new Properties(), null ) );
+                    mojo.setFiles( files );
+                    mojo.execute();
+                }
+            } );
+            assertWithinBudget( "reading and resolving", size, perKey, budget );
+        }
+        finally
+        {
+            Files.delete( file );
+        }
+    }
+
+    private static long measure( int size, Operation operation )
+    {
+        try
+        {
+            operation.run();
+            long thread = Thread.currentThread().getId();
+            long before = threads.getThreadAllocatedBytes( thread );
+            operation.run();
+            return ( threads.getThreadAllocatedBytes( thread ) - before ) / size;
+        }
+        catch ( Exception e )
+        {
+            throw new IllegalStateException( e );
+        }
+    }
+
+    private static void assertWithinBudget( String operation, int size, long perKey, long budget )
+    {
+        assertTrue( operation + " of " + size + " properties allocated " + perKey + " bytes per property, over the "
+            + "budget of " + budget, perKey <= budget );
+    }
+
+    /**
+     * Keys of realistic length where every fourth value refers to another key and the rest are plain.
+     */
+    private static Properties dataset( int size )
+    {
+        Properties properties = new Properties();
+        for ( int i = 0; i < size; i++ )
+        {
+            String value = i % 4 == 0 && i > 0 ? "prefix-${app.module" + ( i - 1 ) + ".setting}-suffix" : "value-" + i;
+            properties.setProperty( "app.module" + i + ".setting", value );
+        }
+        return properties;
+    }
+
+    private static byte[] text( Properties properties )
+    {
+        StringBuilder text = new StringBuilder();
+        for ( String key : properties.stringPropertyNames() )
+        {
+            text.append( key ).append( '=' ).append( properties.getProperty( key ) ).append( '\n' );
+        }
+        return text.toString().getBytes( StandardCharsets.ISO_8859_1 );
+    }
+
+    private interface Operation
+    {
+        void run()
+            throws Exception;
+    }
+}
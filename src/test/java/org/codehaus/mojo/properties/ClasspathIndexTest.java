@@ -0,0 +1,133 @@
+package org.codehaus.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.IOUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests looking up resources in an indexed class path.
+ */
+public class ClasspathIndexTest
+{
+    private File directory;
+
+    private File jar;
+
+    private ClasspathIndex index;
+
+    @Before
+    public void createClasspath()
+        throws IOException
+    {
+        directory = Files.createTempDirectory( "classpath-index" ).toFile();
+        write( new File( directory, "config/a.properties" ), "source=directory" );
+        write( new File( directory, "config/sub/b.properties" ), "source=directory" );
+        write( new File( directory, "config/ignored.txt" ), "" );
+
+        jar = File.createTempFile( "classpath-index", ".jar" );
+        ZipOutputStream out = new ZipOutputStream( new FileOutputStream( jar ) );
+        try
+        {
+            out.putNextEntry( new ZipEntry( "config/" ) );
+            out.putNextEntry( new ZipEntry( "config/c.properties" ) );
+            out.write( "source=jar".getBytes( StandardCharsets.ISO_8859_1 ) );
+            out.putNextEntry( new ZipEntry( "config/a.properties" ) );
+            out.write( "source=jar".getBytes( StandardCharsets.ISO_8859_1 ) );
+        }
+        finally
+        {
+            out.close();
+        }
+
+        URLClassLoader loader = new URLClassLoader( new URL[] { directory.toURI().toURL(), jar.toURI().toURL() }, null );
+        index = ClasspathIndex.build( loader );
+    }
+
+    @After
+    public void deleteClasspath()
+        throws IOException
+    {
+        FileUtils.deleteDirectory( directory );
+        jar.delete();
+    }
+
+    @Test
+    public void firstMatchInClasspathOrderIsFound()
+        throws IOException
+    {
+        assertEquals( "source=directory", read( index.find( "config/a.properties" ) ) );
+        assertEquals( "source=jar", read( index.find( "config/c.properties" ) ) );
+        assertNull( index.find( "config/missing.properties" ) );
+    }
+
+    @Test
+    public void allMatchesAreFoundInClasspathOrderThenByName()
+        throws IOException
+    {
+        List<URL> matches = index.findAll( "config/**/*.properties" );
+
+        assertEquals( 4, matches.size() );
+        assertTrue( matches.get( 0 ).toString().endsWith( "config/a.properties" ) );
+        assertTrue( matches.get( 1 ).toString().endsWith( "config/sub/b.properties" ) );
+        assertEquals( "source=jar", read( matches.get( 2 ) ) );
+        assertTrue( matches.get( 2 ).toString().endsWith( "config/a.properties" ) );
+        assertTrue( matches.get( 3 ).toString().endsWith( "config/c.properties" ) );
+    }
+
+    private static void write( File file, String content )
+        throws IOException
+    {
+        file.getParentFile().mkdirs();
+        FileUtils.fileWrite( file, "ISO-8859-1", content );
+    }
+
+    private static String read( URL url )
+        throws IOException
+    {
+        InputStream stream = url.openStream();
+        try
+        {
+            return IOUtil.toString( stream, "ISO-8859-1" );
+        }
+        finally
+        {
+            stream.close();
+        }
+    }
+}
@@ -0,0 +1,387 @@
+package org.codehaus.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.AfterClass;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Runs many executions of the <code>threadSafe</code> goals at once, as a parallel build does: every execution reads
+ * a file shared by all modules and a file of its own module into one shared session. The executions must not lose
+ * each other's properties, and readers of the session must only ever see a value as it was read or as it is fully
+ * resolved. Run with <code>-Dstress.threads=...</code> and <code>-Dstress.rounds=...</code> to stress harder. Whether
+ * running them concurrently is much slower than running them one after the other depends on the load of the machine,
+ * so that is only checked with <code>-Dstress.throughput=true</code>, on a machine with spare processors.
+ */
+public class ConcurrencyStressTest
+{
+    private static final int THREADS = Integer.getInteger( "stress.threads", 8 );
+
+    private static final int ROUNDS = Integer.getInteger( "stress.rounds", 20 );
+
+    private static final int KEYS = 200;
+
+    private static final boolean THROUGHPUT = Boolean.getBoolean( "stress.throughput" );
+
+    /**
+     * How much slower than sequential executions concurrent executions may be, on any number of processors.
+     */
+    private static final int COLLAPSE_FACTOR = 4;
+
+    private static File shared;
+
+    private static File[] modules;
+
+    /**
+     * The values of all keys as read, before resolution.
+     */
+    private static Map<String, String> raw;
+
+    /**
+     * The values of all keys once resolved, by executions that ran one after the other.
+     */
+    private static Properties expected;
+
+    private static ExecutorService pool;
+
+    @BeforeClass
+    public static void createModules()
+        throws Exception
+    {
+        pool = Executors.newFixedThreadPool( THREADS );
+
+        raw = new HashMap<String, String>();
+        shared = write( "shared", raw );
+        modules = new File[THREADS];
+        for ( int m = 0; m < THREADS; m++ )
+        {
+            modules[m] = write( "module" + m, raw );
+        }
+
+        MavenSession session = session();
+        for ( int m = 0; m < THREADS; m++ )
+        {
+            readProperties( session, m, false ).execute();
+        }
+        expected = session.getUserProperties();
+        assertEquals( ( THREADS + 1 ) * KEYS, expected.size() );
+    }
+
+    @AfterClass
+    public static void shutdown()
+    {
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void readPropertiesLosesNoUpdates()
+        throws Exception
+    {
+        for ( int round = 0; round < ROUNDS; round++ )
+        {
+            MavenSession session = session();
+            runConcurrently( readPropertiesTasks( session, round % 2 == 1 ) );
+            assertEquals( "round " + round, expected, session.getUserProperties() );
+        }
+    }
+
+    @Test
+    public void readersNeverSeeHalfResolvedValues()
+        throws Exception
+    {
+        for ( int round = 0; round < ROUNDS; round++ )
+        {
+            final MavenSession session = session();
+            final AtomicBoolean running = new AtomicBoolean( true );
+            final AtomicReference<String> torn = new AtomicReference<String>();
+            Thread reader = new Thread( "session reader" )
+            {
+                @Override
+                public void run()
+                {
+                    while ( running.get() && torn.get() == null )
+                    {
+                        Properties properties = session.getUserProperties();
+                        for ( String key : properties.stringPropertyNames() )
+                        {
+                            String value = properties.getProperty( key );
+                            if ( !value.equals( raw.get( key ) ) && !value.equals( expected.getProperty( key ) ) )
+                            {
+                                torn.compareAndSet( null, key + "=" + value );
+                            }
+                        }
+                    }
+                }
+            };
+            reader.start();
+            try
+            {
+                runConcurrently( readPropertiesTasks( session, round % 2 == 1 ) );
+            }
+            finally
+            {
+                running.set( false );
+                reader.join();
+            }
+            assertNull( "round " + round + " read a value that is neither read nor resolved", torn.get() );
+        }
+    }
+
+    @Test
+    public void setSystemPropertiesLosesNoUpdates()
+        throws Exception
+    {
+        Set<String> keys = new HashSet<String>();
+        try
+        {
+            for ( int round = 0; round < ROUNDS; round++ )
+            {
+                List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+                Set<String> sharedValues = new HashSet<String>();
+                for ( int t = 0; t < THREADS; t++ )
+                {
+                    Properties properties = new Properties();
+                    for ( int k = 0; k < KEYS; k++ )
+                    {
+                        properties.setProperty( "stress.thread" + t + ".key" + k, "round" + round + ".value" + k );
+                    }
+                    properties.setProperty( "stress.shared", "round" + round + ".thread" + t );
+                    sharedValues.add( "round" + round + ".thread" + t );
+                    keys.addAll( properties.stringPropertyNames() );
+
+                    final SetSystemPropertiesMojo mojo = new SetSystemPropertiesMojo();
+                    mojo.setLog( new QuietLog() );
+                    mojo.setProperties( properties );
+                    tasks.add( new Callable<Void>()
+                    {
+                        public Void call()
+                            throws Exception
+                        {
+                            mojo.execute();
+                            return null;
+                        }
+                    } );
+                }
+                runConcurrently( tasks );
+
+                for ( int t = 0; t < THREADS; t++ )
+                {
+                    for ( int k = 0; k < KEYS; k++ )
+                    {
+                        assertEquals( "round" + round + ".value" + k,
+                                      System.getProperty( "stress.thread" + t + ".key" + k ) );
+                    }
+                }
+                assertTrue( sharedValues.contains( System.getProperty( "stress.shared" ) ) );
+            }
+        }
+        finally
+        {
+            for ( String key : keys )
+            {
+                System.clearProperty( key );
+            }
+        }
+    }
+
+    @Test
+    public void concurrentExecutionsDoNotCollapseThroughput()
+        throws Exception
+    {
+        Assume.assumeTrue( THROUGHPUT );
+        // warm up both ways first, so that neither measurement includes class loading and compilation
+        sequential( ROUNDS );
+        concurrent( ROUNDS );
+
+        long sequential = sequential( ROUNDS );
+        long concurrent = concurrent( ROUNDS );
+        assertTrue( "concurrent " + concurrent / 1000000 + " ms, sequential " + sequential / 1000000 + " ms",
+                    concurrent <= COLLAPSE_FACTOR * sequential );
+    }
+
+    private static long sequential( int rounds )
+        throws Exception
+    {
+        long start = System.nanoTime();
+        for ( int round = 0; round < rounds; round++ )
+        {
+            MavenSession session = session();
+            for ( int m = 0; m < THREADS; m++ )
+            {
+                readProperties( session, m, round % 2 == 1 ).execute();
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long concurrent( int rounds )
+        throws Exception
+    {
+        long start = System.nanoTime();
+        for ( int round = 0; round < rounds; round++ )
+        {
+            runConcurrently( readPropertiesTasks( session(), round % 2 == 1 ) );
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static List<Callable<Void>> readPropertiesTasks( MavenSession session, boolean cached )
+    {
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+        for ( int m = 0; m < THREADS; m++ )
+        {
+            final ReadPropertiesMojo mojo = readProperties( session, m, cached );
+            tasks.add( new Callable<Void>()
+            {
+                public Void call()
+                    throws Exception
+                {
+                    mojo.execute();
+                    return null;
+                }
+            } );
+        }
+        return tasks;
+    }
+
+    /**
+     * Starts all tasks at once and waits for them, failing with the first failure of a task.
+     */
+    private static void runConcurrently( List<Callable<Void>> tasks )
+        throws Exception
+    {
+        final CountDownLatch start = new CountDownLatch( 1 );
+        List<Future<Void>> futures = new ArrayList<Future<Void>>();
+        for ( final Callable<Void> task : tasks )
+        {
+            futures.add( pool.submit( new Callable<Void>()
+            {
+                public Void call()
+                    throws Exception
+                {
+                    start.await();
+                    return task.call();
+                }
+            } ) );
+        }
+        start.countDown();
+        for ( Future<Void> future : futures )
+        {
+            try
+            {
+                future.get();
+            }
+            catch ( ExecutionException e )
+            {
+                throw (Exception) e.getCause();
+            }
+        }
+    }
+
+    private static ReadPropertiesMojo readProperties( MavenSession session, int module, boolean cached )
+    {
+        ReadPropertiesMojo mojo = new ReadPropertiesMojo();
+        mojo.setLog( new QuietLog() );
+        mojo.setSession( session );
+        mojo.setProjectProperties( new Properties() );
+        mojo.setFiles( new File[] { shared, modules[module] } );
+        mojo.setCacheSources( cached );
+        mojo.setCacheResolution( cached );
+        return mojo;
+    }
+
+    @SuppressWarnings( "deprecation" )
+    private static MavenSession session()
+    {
+        return new MavenSession( null, null, null, null, null, null, null, null, new Properties(), null );
+    }
+
+    /**
+     * Writes keys of which every fifth refers to the previous key, and every tenth of a module also to a shared key.
+     */
+    private static File write( String name, Map<String, String> raw )
+        throws IOException
+    {
+        Properties properties = new Properties();
+        for ( int k = 0; k < KEYS; k++ )
+        {
+            String value = "value" + k;
+            if ( k % 5 == 4 )
+            {
+                value = "${" + name + ".key" + ( k - 1 ) + "}/" + value;
+            }
+            if ( k % 10 == 9 && !name.equals( "shared" ) )
+            {
+                value = "${shared.key" + k + "}/" + value;
+            }
+            properties.setProperty( name + ".key" + k, value );
+            raw.put( name + ".key" + k, value );
+        }
+        File file = File.createTempFile( "stress-" + name, ".properties" );
+        file.deleteOnExit();
+        OutputStream out = new FileOutputStream( file );
+        try
+        {
+            properties.store( out, null );
+        }
+        finally
+        {
+            out.close();
+        }
+        return file;
+    }
+
+    private static class QuietLog
+        extends SystemStreamLog
+    {
+        @Override
+        public void info( CharSequence content )
+        {
+        }
+    }
+}
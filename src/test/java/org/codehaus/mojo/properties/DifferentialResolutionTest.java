@@ -0,0 +1,335 @@
+package org.codehaus.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import static org.junit.Assert.*;
+
+import java.util.Properties;
+import java.util.Random;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.MojoFailureException;
+import org.junit.Test;
+
+/**
+ * Compares the resolution engines with {@link LegacyResolver} on random graphs of keys, which must give identical
+ * values or fail identically. Values are built from fragments that exercise the subtle rules: unresolved and malformed
+ * placeholders are kept, <code>env.</code> placeholders are only looked up if some value refers to the environment,
+ * and self references such as <code>test=${test}</code> fail instead of looping. The <code>@</code> delimiter, which
+ * starts and ends placeholders alike, is compared on cases whose placeholders are all complete, written as
+ * <code>${key}</code> for the legacy resolver and as <code>@key@</code> for the engines. Cases that the legacy resolver
+ * expands forever are skipped, since every engine shares that behaviour and cannot be compared within a test. Run with
+ * <code>-Ddifferential.seed=...</code> and <code>-Ddifferential.iterations=...</code> to explore further; a failure
+ * reports the seed and the properties of the failing case.
+ */
+public class DifferentialResolutionTest
+{
+    private static final long SEED = Long.getLong( "differential.seed", 20140301L );
+
+    private static final int ITERATIONS = Integer.getInteger( "differential.iterations", 2000 );
+
+    private static final String[] FRAGMENTS =
+        { "x", "-", "}", "{", "$", "${", "env.", "E0}", "${p0}", "${p1}", "${env.E0}", "${env.E1}", "${env.MISSING}",
+            "${${k0}}", "${k}" };
+
+    // without a plain env. text, which may follow the end of a placeholder and look like an env. reference for @
+    private static final String[] COMPLETE_FRAGMENTS =
+        { "x", "-", "${p0}", "${p1}", "${env.E0}", "${env.E1}", "${env.MISSING}", "${k}" };
+
+    @Test
+    public void resolverMatchesLegacy()
+    {
+        PlaceholderSyntax multiple = PlaceholderSyntax.compile( "${*}", "#{*}" );
+        for ( int iteration = 0; iteration < ITERATIONS; iteration++ )
+        {
+            Random random = new Random( SEED + iteration );
+            Case c = generate( random );
+            Properties environment = random.nextBoolean() ? c.environment : null;
+            for ( String key : c.properties.stringPropertyNames() )
+            {
+                String expected = legacyValue( key, c, environment );
+                if ( expected == null )
+                {
+                    continue;
+                }
+                PropertyResolver resolver = new PropertyResolver();
+                assertEquals( c.describe( iteration, key ), expected, value( resolver, key, c, environment ) );
+                resolver.setSyntax( multiple );
+                assertEquals( c.describe( iteration, key ) + " with #{*}", expected,
+                              value( resolver, key, c, environment ) );
+            }
+        }
+    }
+
+    @Test
+    public void symmetricDelimiterMatchesLegacy()
+    {
+        PlaceholderSyntax symmetric = PlaceholderSyntax.compile( "@" );
+        for ( int iteration = 0; iteration < ITERATIONS; iteration++ )
+        {
+            Random random = new Random( SEED + iteration );
+            Case c = generate( random, COMPLETE_FRAGMENTS );
+            Case s = c.withSymmetricDelimiter();
+            boolean withEnvironment = random.nextBoolean();
+            for ( String key : c.properties.stringPropertyNames() )
+            {
+                String expected = legacyValue( key, c, withEnvironment ? c.environment : null );
+                if ( expected == null )
+                {
+                    continue;
+                }
+                PropertyResolver resolver = new PropertyResolver();
+                resolver.setSyntax( symmetric );
+                assertEquals( s.describe( iteration, key ), symmetric( expected ),
+                              value( resolver, key, s, withEnvironment ? s.environment : null ) );
+            }
+            String expected = legacyResolveAll( c );
+            if ( expected != null )
+            {
+                // the braces around the properties are replaced alike
+                assertEquals( s.describe( iteration, null ), symmetric( expected ),
+                              symmetric( execute( s, false, false, "@" ) ) );
+            }
+        }
+    }
+
+    @Test
+    public void readPropertiesMatchesLegacy()
+    {
+        for ( int iteration = 0; iteration < ITERATIONS; iteration++ )
+        {
+            Case c = generate( new Random( SEED + iteration ) );
+            String expected = legacyResolveAll( c );
+            if ( expected != null )
+            {
+                assertEquals( c.describe( iteration, null ), expected, execute( c, false, false ) );
+            }
+        }
+    }
+
+    @Test
+    public void cachedResolutionMatchesLegacy()
+    {
+        for ( int iteration = 0; iteration < ITERATIONS; iteration++ )
+        {
+            Case c = generate( new Random( SEED + iteration ) );
+            String expected = legacyResolveAll( c );
+            if ( expected != null )
+            {
+                assertEquals( c.describe( iteration, null ), expected, execute( c, true, false ) );
+                assertEquals( c.describe( iteration, null ) + " from cache", expected, execute( c, true, false ) );
+            }
+        }
+    }
+
+    @Test
+    public void resolvingAllRequestedKeysMatchesLegacy()
+    {
+        for ( int iteration = 0; iteration < ITERATIONS; iteration++ )
+        {
+            Case c = generate( new Random( SEED + iteration ) );
+            String expected = legacyResolveAll( c );
+            if ( expected != null )
+            {
+                assertEquals( c.describe( iteration, null ), expected, execute( c, false, true ) );
+            }
+        }
+    }
+
+    private static Case generate( Random random )
+    {
+        return generate( random, FRAGMENTS );
+    }
+
+    private static Case generate( Random random, String[] fragments )
+    {
+        Case c = new Case();
+        int size = 1 + random.nextInt( 5 );
+        for ( int i = 0; i < size; i++ )
+        {
+            c.properties.setProperty( "k" + i, fragments( random, fragments, size + 1 ) );
+        }
+        if ( random.nextBoolean() )
+        {
+            c.projectProperties.setProperty( "p0", fragments( random, fragments, size + 1 ) );
+        }
+        c.environment.setProperty( "E0", "e0" );
+        c.environment.setProperty( "E1", fragments( random, fragments, size + 1 ) );
+        return c;
+    }
+
+    private static String fragments( Random random, String[] fragments, int keys )
+    {
+        StringBuilder value = new StringBuilder();
+        for ( int n = random.nextInt( 5 ); n > 0; n-- )
+        {
+            String fragment = fragments[random.nextInt( fragments.length )];
+            value.append( fragment.equals( "${k}" ) ? "${k" + random.nextInt( keys ) + "}" : fragment );
+        }
+        return value.toString();
+    }
+
+    private static String legacyValue( String key, Case c, Properties environment )
+    {
+        try
+        {
+            return LegacyResolver.getPropertyValue( key, c.properties, c.projectProperties, environment );
+        }
+        catch ( LegacyResolver.NonTerminatingException e )
+        {
+            return null;
+        }
+        catch ( RuntimeException e )
+        {
+            return failure( e );
+        }
+    }
+
+    private static String value( PropertyResolver resolver, String key, Case c, Properties environment )
+    {
+        try
+        {
+            return resolver.getPropertyValue( key, c.properties, c.projectProperties, environment );
+        }
+        catch ( RuntimeException e )
+        {
+            return failure( e );
+        }
+    }
+
+    private static String legacyResolveAll( Case c )
+    {
+        Properties properties = copy( c.properties );
+        try
+        {
+            LegacyResolver.resolveAll( properties, c.projectProperties, c.environment );
+        }
+        catch ( LegacyResolver.NonTerminatingException e )
+        {
+            return null;
+        }
+        catch ( RuntimeException e )
+        {
+            return failure( e );
+        }
+        return properties.toString();
+    }
+
+    private static String execute( Case c, boolean cacheResolution, boolean resolveAll )
+    {
+        return execute( c, cacheResolution, resolveAll, "${*}" );
+    }
+
+    @SuppressWarnings( "deprecation" )
+    private static String execute( final Case c, boolean cacheResolution, boolean resolveAll, String delimiter )
+    {
+        MavenSession session = new MavenSession( null, null, null, null, null, null, null, null, copy( c.properties ), null );
+        ReadPropertiesMojo mojo = new ReadPropertiesMojo()
+        {
+            Properties getSystemEnvVars()
+            {
+                return c.environment;
+            }
+        };
+        mojo.setSession( session );
+        mojo.setProjectProperties( c.projectProperties );
+        mojo.setCacheResolution( cacheResolution );
+        mojo.setPlaceholderDelimiters( new String[] { delimiter } );
+        if ( resolveAll )
+        {
+            mojo.setResolveOnly( new String[] { "*" } );
+        }
+        try
+        {
+            mojo.execute();
+        }
+        catch ( MojoFailureException e )
+        {
+            return "!" + IllegalArgumentException.class.getName() + ": " + e.getMessage();
+        }
+        catch ( Exception e )
+        {
+            return failure( e );
+        }
+        return session.getUserProperties().toString();
+    }
+
+    /**
+     * Circular definitions are compared with their message, other failures only by type because the JVM may describe
+     * them in more detail than the legacy code did.
+     */
+    private static String failure( Exception e )
+    {
+        if ( e instanceof IllegalArgumentException )
+        {
+            return "!" + e.getClass().getName() + ": " + e.getMessage();
+        }
+        return "!" + e.getClass().getName();
+    }
+
+    /**
+     * @return The text with every <code>${key}</code> written as <code>@key@</code>, which only gives the same
+     *         placeholders if all of them are complete.
+     */
+    private static String symmetric( String text )
+    {
+        return text.replace( "${", "@" ).replace( "}", "@" );
+    }
+
+    private static Properties copy( Properties properties )
+    {
+        Properties copy = new Properties();
+        copy.putAll( properties );
+        return copy;
+    }
+
+    private static class Case
+    {
+        private final Properties properties = new Properties();
+
+        private final Properties projectProperties = new Properties();
+
+        private final Properties environment = new Properties();
+
+        private Case withSymmetricDelimiter()
+        {
+            Case c = new Case();
+            symmetric( properties, c.properties );
+            symmetric( projectProperties, c.projectProperties );
+            symmetric( environment, c.environment );
+            return c;
+        }
+
+        private static void symmetric( Properties from, Properties to )
+        {
+            for ( String key : from.stringPropertyNames() )
+            {
+                to.setProperty( key, DifferentialResolutionTest.symmetric( from.getProperty( key ) ) );
+            }
+        }
+
+        private String describe( int iteration, String key )
+        {
+            return "seed " + ( SEED + iteration ) + ( key != null ? ", key " + key : "" ) + ", properties "
+                + properties + ", project " + projectProperties + ", environment " + environment;
+        }
+    }
+}
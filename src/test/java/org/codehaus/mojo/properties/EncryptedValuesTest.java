@@ -0,0 +1,226 @@
+package org.codehaus.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.security.KeyStore;
+import java.util.Properties;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Before;
+import org.junit.Test;
+
+public class EncryptedValuesTest
+{
+    private static final String PASSWORD = "changeit";
+
+    private File keystore;
+
+    private EncryptedValues values;
+
+    @Before
+    public void createKeystore()
+        throws Exception
+    {
+        keystore = keystore( "properties" );
+        values = EncryptedValues.load( keystore, "JCEKS", PASSWORD, "properties" );
+    }
+
+    @Test
+    public void decryptsWhatWasEncrypted()
+        throws Exception
+    {
+        String encrypted = values.encrypt( "s3cr\u00e9t" );
+
+        assertTrue( EncryptedValues.isEncrypted( encrypted ) );
+        assertFalse( EncryptedValues.isEncrypted( "s3cret" ) );
+        assertFalse( EncryptedValues.isEncrypted( "ENC(" ) );
+        assertEquals( "s3cr\u00e9t", values.decrypt( "password", encrypted ) );
+    }
+
+    @Test
+    public void decryptsEachValueOnce()
+        throws Exception
+    {
+        String encrypted = values.encrypt( "s3cret" );
+        PropertyResolver resolver = new PropertyResolver();
+        resolver.setEncryptedValues( values );
+        Properties properties = new Properties();
+        properties.setProperty( "password", encrypted );
+        properties.setProperty( "first", "${password}" );
+        properties.setProperty( "second", "${password}" );
+
+        assertEquals( "s3cret", resolver.getPropertyValue( "first", properties, new Properties(), null ) );
+        assertEquals( "s3cret", resolver.getPropertyValue( "second", properties, new Properties(), null ) );
+        assertEquals( 1, values.size() );
+    }
+
+    @Test
+    public void decryptedValuesAreNotExpanded()
+        throws Exception
+    {
+        PropertyResolver resolver = new PropertyResolver();
+        resolver.setEncryptedValues( values );
+        Properties properties = new Properties();
+        properties.setProperty( "password", values.encrypt( "a${b}c" ) );
+        properties.setProperty( "b", "expanded" );
+        properties.setProperty( "url", "db://${password}@host" );
+
+        assertEquals( "db://a${b}c@host", resolver.getPropertyValue( "url", properties, new Properties(), null ) );
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void valuesOfAnotherKeyAreRejected()
+        throws Exception
+    {
+        EncryptedValues other = EncryptedValues.load( keystore( "other" ), "JCEKS", PASSWORD, "other" );
+
+        values.decrypt( "password", other.encrypt( "s3cret" ) );
+    }
+
+    @Test
+    public void readPropertiesOnlyDecryptsValuesThatAreReferred()
+        throws Exception
+    {
+        Properties file = new Properties();
+        file.setProperty( "db.password", values.encrypt( "s3cret" ) );
+        file.setProperty( "db.url", "jdbc:db://user:${db.password}@host" );
+        file.setProperty( "unused", "ENC(not even base64!)" );
+
+        MavenSession session = readProperties( file );
+
+        Properties userProperties = session.getUserProperties();
+        assertEquals( "jdbc:db://user:s3cret@host", userProperties.getProperty( "db.url" ) );
+        assertEquals( file.getProperty( "db.password" ), userProperties.getProperty( "db.password" ) );
+        assertEquals( "ENC(not even base64!)", userProperties.getProperty( "unused" ) );
+    }
+
+    @Test
+    public void provenanceNeverLogsDecryptedValues()
+        throws Exception
+    {
+        Properties file = new Properties();
+        file.setProperty( "db.password", values.encrypt( "s3cret" ) );
+        file.setProperty( "db.user", "user" );
+        file.setProperty( "db.url", "jdbc:db://${db.user}:${db.password}@host" );
+        final StringBuilder log = new StringBuilder();
+        ReadPropertiesMojo mojo = mojo( file, session() );
+        mojo.setProvenanceKeys( new String[] { "db.url", "db.user" } );
+        mojo.setLog( new SystemStreamLog()
+        {
+            @Override
+            public void info( CharSequence content )
+            {
+                log.append( content ).append( '\n' );
+            }
+        } );
+
+        mojo.execute();
+
+        assertFalse( log.toString(), log.toString().contains( "s3cret" ) );
+        assertTrue( log.toString(), log.toString().contains( "resolves to a value with decrypted parts, not shown" ) );
+        assertTrue( log.toString(), log.toString().contains( "resolves to user" ) );
+    }
+
+    @Test( expected = MojoFailureException.class )
+    public void readPropertiesFailsForAReferredValueThatCannotBeDecrypted()
+        throws Exception
+    {
+        Properties file = new Properties();
+        file.setProperty( "db.password", "ENC(AAAA)" );
+        file.setProperty( "db.url", "jdbc:db://user:${db.password}@host" );
+
+        readProperties( file );
+    }
+
+    private MavenSession readProperties( Properties properties )
+        throws Exception
+    {
+        MavenSession session = session();
+        mojo( properties, session ).execute();
+        return session;
+    }
+
+    @SuppressWarnings( "deprecation" )
+    private static MavenSession session()
+    {
+        return new MavenSession( null, null, null, null, null, null, null, null, new Properties(), null );
+    }
+
+    private ReadPropertiesMojo mojo( Properties properties, MavenSession session )
+        throws Exception
+    {
+        File file = File.createTempFile( "encrypted", ".properties" );
+        file.deleteOnExit();
+        OutputStream out = new FileOutputStream( file );
+        try
+        {
+            properties.store( out, null );
+        }
+        finally
+        {
+            out.close();
+        }
+
+        ReadPropertiesMojo mojo = new ReadPropertiesMojo();
+        mojo.setSession( session );
+        mojo.setProjectProperties( new Properties() );
+        mojo.setFiles( new File[] { file } );
+        mojo.setDecryptionKeystore( keystore, "JCEKS", PASSWORD, "properties" );
+        return mojo;
+    }
+
+    private static File keystore( String alias )
+        throws Exception
+    {
+        KeyGenerator generator = KeyGenerator.getInstance( "AES" );
+        generator.init( 128 );
+        SecretKey key = generator.generateKey();
+
+        KeyStore store = KeyStore.getInstance( "JCEKS" );
+        store.load( null, null );
+        store.setEntry( alias, new KeyStore.SecretKeyEntry( key ),
+                        new KeyStore.PasswordProtection( PASSWORD.toCharArray() ) );
+
+        File file = File.createTempFile( "properties", ".jceks" );
+        file.deleteOnExit();
+        OutputStream out = new FileOutputStream( file );
+        try
+        {
+            store.store( out, PASSWORD.toCharArray() );
+        }
+        finally
+        {
+            out.close();
+        }
+        return file;
+    }
+}
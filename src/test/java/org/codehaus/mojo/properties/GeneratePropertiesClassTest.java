@@ -0,0 +1,122 @@
+package org.codehaus.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.apache.maven.project.MavenProject;
+import org.junit.Assume;
+import org.junit.Test;
+
+/**
+ * Tests generating a class with a perfect hash lookup.
+ */
+public class GeneratePropertiesClassTest
+{
+    @Test
+    public void perfectHashPlacesEveryKeyInItsOwnSlot()
+    {
+        List<String> keys = new ArrayList<String>();
+        for ( int i = 0; i < 5000; i++ )
+        {
+            keys.add( "key." + i );
+        }
+        PerfectHash hash = PerfectHash.build( keys );
+        boolean[] used = new boolean[keys.size()];
+        for ( int i = 0; i < keys.size(); i++ )
+        {
+            int slot = hash.slot( keys.get( i ) );
+            assertFalse( used[slot] );
+            used[slot] = true;
+            assertEquals( i, hash.getSlots()[slot] );
+        }
+    }
+
+    @Test
+    public void generatedClassLooksUpEveryProperty()
+        throws Exception
+    {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        Assume.assumeNotNull( compiler );
+        File directory = Files.createTempDirectory( "generate-properties" ).toFile();
+        MavenProject project = new MavenProject();
+        Properties properties = project.getProperties();
+        for ( int i = 0; i < 2500; i++ )
+        {
+            properties.setProperty( "key." + i, "value " + i );
+        }
+        properties.setProperty( "keys", "reserved name" );
+        properties.setProperty( "special", "café \"quoted\"\n\\" );
+        properties.setProperty( ".", "symbol" );
+        properties.setProperty( "-", "symbol" );
+
+        GeneratePropertiesClassMojo mojo = new GeneratePropertiesClassMojo();
+        mojo.setTarget( project, "com.example.Config", directory );
+        mojo.execute();
+
+        assertTrue( project.getCompileSourceRoots().contains( directory.getAbsolutePath() ) );
+        File source = new File( directory, "com/example/Config.java" );
+        assertEquals( 0, compiler.run( null, null, null, "-d", directory.getPath(), source.getPath() ) );
+        URLClassLoader loader = new URLClassLoader( new URL[] { directory.toURI().toURL() } );
+        Class<?> type = loader.loadClass( "com.example.Config" );
+        Method get = type.getMethod( "get", String.class );
+        for ( String key : properties.stringPropertyNames() )
+        {
+            assertEquals( key, properties.getProperty( key ), get.invoke( null, key ) );
+        }
+        assertNull( get.invoke( null, "missing" ) );
+        assertNull( get.invoke( null, "" ) );
+        assertEquals( "reserved name", type.getField( "KEYS_2" ).get( null ) );
+        assertEquals( "value 7", type.getField( "KEY_7" ).get( null ) );
+        assertEquals( "symbol", type.getField( "_KEY" ).get( null ) );
+        assertEquals( "symbol", type.getField( "_KEY_2" ).get( null ) );
+    }
+
+    @Test
+    public void emptyProjectGeneratesEmptyLookup()
+        throws Exception
+    {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        Assume.assumeNotNull( compiler );
+        File directory = Files.createTempDirectory( "generate-properties" ).toFile();
+        GeneratePropertiesClassMojo mojo = new GeneratePropertiesClassMojo();
+        mojo.setTarget( new MavenProject(), "Empty", directory );
+        mojo.execute();
+
+        File source = new File( directory, "Empty.java" );
+        assertEquals( 0, compiler.run( null, null, null, "-d", directory.getPath(), source.getPath() ) );
+        URLClassLoader loader = new URLClassLoader( new URL[] { directory.toURI().toURL() } );
+        Class<?> type = loader.loadClass( "Empty" );
+        assertNull( type.getMethod( "get", String.class ).invoke( null, "any" ) );
+    }
+}
@@ -0,0 +1,216 @@
+package org.codehaus.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * The resolution of the plugin as it was before any of it was optimized, kept as the reference that faster engines
+ * are compared with. Do not change it to match a new engine. The only addition is a limit on the number of
+ * expansions, because a value such as <code>}${a}</code> for <code>a</code> passes the circular definition check
+ * and expands forever.
+ */
+final class LegacyResolver
+{
+    private static final int MAX_EXPANSIONS = 1000;
+    private LegacyResolver()
+    {
+    }
+
+    /**
+     * Resolves all session properties in place, as <code>read-project-properties</code> did.
+     *
+     * @param properties The session properties.
+     * @param projectProperties The project properties.
+     * @param environmentVariables The environment variables, only used if a value refers to one.
+     */
+    static void resolveAll( Properties properties, Properties projectProperties, Properties environmentVariables )
+    {
+        boolean useEnvVariables = false;
+        for ( Enumeration<?> n = properties.propertyNames(); n.hasMoreElements(); )
+        {
+            String k = (String) n.nextElement();
+            String p = (String) properties.get( k );
+            if ( p.indexOf( "${env." ) != -1 )
+            {
+                useEnvVariables = true;
+                break;
+            }
+        }
+        Properties environment = useEnvVariables ? environmentVariables : null;
+        for ( Enumeration<?> n = properties.propertyNames(); n.hasMoreElements(); )
+        {
+            String k = (String) n.nextElement();
+            properties.setProperty( k, getPropertyValue( k, properties, projectProperties, environment ) );
+        }
+    }
+
+    static String getPropertyValue( String key, Properties properties, Properties projectProperties,
+                                    Properties environment )
+    {
+        String value = properties.getProperty( key );
+
+        Buffer buffer = new Buffer( value );
+
+        Preventer circularDefinitionPreventer = new Preventer().visited( key, value );
+
+        for ( int expansions = 0; buffer.hasMoreLegalPlaceholders(); expansions++ )
+        {
+            if ( expansions == MAX_EXPANSIONS )
+            {
+                throw new NonTerminatingException( key );
+            }
+            String newKey = buffer.extractPropertyKey();
+            String newValue = fromPropertiesThenSystemThenEnvironment( newKey, properties, projectProperties,
+                                                                       environment );
+
+            circularDefinitionPreventer.visited( newKey, newValue );
+
+            buffer.add( newKey, newValue );
+        }
+
+        return buffer.toString();
+    }
+
+    private static String fromPropertiesThenSystemThenEnvironment( String key, Properties properties,
+                                                                   Properties projectProperties,
+                                                                   Properties environment )
+    {
+        String value = properties.getProperty( key );
+
+        if ( value == null )
+        {
+            value = projectProperties.getProperty( key );
+        }
+
+        if ( value == null )
+        {
+            value = System.getProperty( key );
+        }
+
+        if ( value == null && key.startsWith( "env." ) && environment != null )
+        {
+            value = environment.getProperty( key.substring( 4 ) );
+        }
+
+        return value;
+    }
+
+    /**
+     * Thrown instead of expanding a value forever.
+     */
+    static class NonTerminatingException
+        extends RuntimeException
+    {
+        private static final long serialVersionUID = 1L;
+
+        NonTerminatingException( String key )
+        {
+            super( "Expansion of " + key + " does not terminate" );
+        }
+    }
+
+    private static class Buffer
+    {
+        private final StringBuilder resolved = new StringBuilder();
+
+        private String unresolved;
+
+        Buffer( String unresolved )
+        {
+            this.unresolved = unresolved != null ? unresolved : "";
+        }
+
+        boolean hasMoreLegalPlaceholders()
+        {
+            int prefixPos = unresolved.indexOf( "${" );
+            int suffixPos = unresolved.indexOf( "}", prefixPos + 2 );
+            return prefixPos >= 0 && suffixPos >= 0;
+        }
+
+        String extractPropertyKey()
+        {
+            resolved.append( unresolved.substring( 0, unresolved.indexOf( "${" ) ) );
+            unresolved = unresolved.substring( unresolved.indexOf( "${" ) + 2 );
+            String key = unresolved.substring( 0, unresolved.indexOf( "}" ) );
+            unresolved = unresolved.substring( unresolved.indexOf( "}" ) + 1 );
+            return key;
+        }
+
+        public String toString()
+        {
+            return new StringBuilder( resolved ).append( unresolved ).toString();
+        }
+
+        void add( String newKey, String newValue )
+        {
+            if ( newValue != null )
+            {
+                unresolved = newValue + unresolved;
+            }
+            else
+            {
+                resolved.append( "${" ).append( newKey ).append( "}" );
+            }
+        }
+    }
+
+    private static class Preventer
+    {
+        private final List<String[]> entriesVisited = new LinkedList<String[]>();
+
+        private final Set<String> keysUsed = new HashSet<String>();
+
+        Preventer visited( String key, String value )
+        {
+            entriesVisited.add( new String[] { key, value } );
+            if ( keysUsed.contains( key ) && !isValueResolved( value ) )
+            {
+                StringBuilder buffer = new StringBuilder( "Circular property definition: " );
+                for ( Iterator<String[]> iterator = entriesVisited.iterator(); iterator.hasNext(); )
+                {
+                    String[] visited = iterator.next();
+                    buffer.append( visited[0] ).append( "=" ).append( visited[1] );
+                    if ( iterator.hasNext() )
+                    {
+                        buffer.append( " -> " );
+                    }
+                }
+                throw new IllegalArgumentException( buffer.toString() );
+            }
+            keysUsed.add( key );
+            return this;
+        }
+
+        private boolean isValueResolved( String value )
+        {
+            int prefixPos = value.indexOf( "${" );
+            int suffixPos = value.indexOf( "}" );
+            return !( prefixPos >= 0 && suffixPos > prefixPos );
+        }
+    }
+}
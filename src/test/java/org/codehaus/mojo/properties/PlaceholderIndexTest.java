@@ -0,0 +1,74 @@
+package org.codehaus.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Properties;
+
+import org.junit.Test;
+
+/**
+ * Tests the index of values with placeholders.
+ */
+public class PlaceholderIndexTest
+{
+    @Test
+    public void onlyValuesWithPlaceholdersAreIndexed()
+    {
+        Properties properties = new Properties();
+        properties.setProperty( "plain", "value" );
+        properties.setProperty( "open", "${not closed" );
+        properties.setProperty( "closedFirst", "} ${" );
+        properties.setProperty( "ref", "a ${b} c" );
+        properties.setProperty( "env", "${env.HOME}" );
+
+        PlaceholderIndex index = PlaceholderIndex.scan( properties, PlaceholderSyntax.DEFAULT );
+
+        assertEquals( 5, index.size() );
+        assertEquals( new HashSet<String>( Arrays.asList( "ref", "env" ) ),
+                      new HashSet<String>( index.keysWithPlaceholders() ) );
+        assertTrue( index.usesEnvironment() );
+    }
+
+    @Test
+    public void environmentIsOnlyNeededForEnvironmentPlaceholders()
+    {
+        Properties properties = new Properties();
+        properties.setProperty( "ref", "${environment}" );
+        properties.setProperty( "literal", "env.HOME" );
+
+        assertFalse( PlaceholderIndex.scan( properties, PlaceholderSyntax.DEFAULT ).usesEnvironment() );
+    }
+
+    @Test
+    public void unterminatedEnvironmentReferenceNeedsEnvironment()
+    {
+        // ${ref} expands to ${env.HOME}
+        Properties properties = new Properties();
+        properties.setProperty( "ref", "${open}}" );
+        properties.setProperty( "open", "${env.HOME" );
+
+        assertTrue( PlaceholderIndex.scan( properties, PlaceholderSyntax.DEFAULT ).usesEnvironment() );
+    }
+}
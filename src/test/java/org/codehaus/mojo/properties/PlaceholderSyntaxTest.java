@@ -0,0 +1,170 @@
+package org.codehaus.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import static org.junit.Assert.*;
+
+import java.util.Properties;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests recognizing placeholders with several delimiters.
+ */
+public class PlaceholderSyntaxTest
+{
+    @Test
+    public void defaultSyntaxKeepsLegacyRules()
+    {
+        PlaceholderSyntax syntax = PlaceholderSyntax.DEFAULT;
+        assertFalse( syntax.containsPlaceholder( "${" ) );
+        assertFalse( syntax.containsPlaceholder( "}${a" ) );
+        assertTrue( syntax.containsPlaceholder( "${}" ) );
+        assertTrue( syntax.containsPlaceholder( "x${a}y" ) );
+        assertEquals( "${a", key( syntax, "${${a}}" ) );
+        assertTrue( syntax.looksResolved( "}${a" ) );
+        assertFalse( syntax.looksResolved( "${a}" ) );
+    }
+
+    @Test
+    public void symmetricDelimiterLooksForTheEndAfterTheStart()
+    {
+        PlaceholderSyntax syntax = PlaceholderSyntax.compile( "@" );
+        assertFalse( syntax.looksResolved( "@a@" ) );
+        assertFalse( syntax.looksResolved( "x@a@@" ) );
+        assertTrue( syntax.looksResolved( "mail@example.com" ) );
+        assertTrue( syntax.looksResolved( "@" ) );
+    }
+
+    @Test
+    public void symmetricDelimiterCircularDefinitionFails()
+    {
+        Properties properties = new Properties();
+        properties.setProperty( "a", "@b@" );
+        properties.setProperty( "b", "@a@" );
+        assertCircular( "a", properties );
+    }
+
+    @Test
+    public void symmetricDelimiterSelfReferenceFails()
+    {
+        Properties properties = new Properties();
+        properties.setProperty( "a", "@a@" );
+        assertCircular( "a", properties );
+    }
+
+    private static void assertCircular( String key, Properties properties )
+    {
+        PropertyResolver resolver = new PropertyResolver();
+        resolver.setSyntax( PlaceholderSyntax.compile( "@" ) );
+        try
+        {
+            resolver.getPropertyValue( key, properties, new Properties(), null );
+            fail();
+        }
+        catch ( IllegalArgumentException e )
+        {
+            assertTrue( e.getMessage(), e.getMessage().startsWith( "Circular property definition" ) );
+        }
+    }
+
+    @Test
+    public void allDelimitersAreResolvedInOneValue()
+    {
+        PropertyResolver resolver = new PropertyResolver();
+        resolver.setSyntax( PlaceholderSyntax.compile( "${*}", "@", "#{*}" ) );
+        Properties properties = new Properties();
+        properties.setProperty( "value", "@a@-#{b}-${c}-@missing@-mail@example.com" );
+        properties.setProperty( "a", "1" );
+        properties.setProperty( "b", "#{c}" );
+        properties.setProperty( "c", "3" );
+
+        assertEquals( "1-3-3-@missing@-mail@example.com",
+                      resolver.getPropertyValue( "value", properties, new Properties(), null ) );
+    }
+
+    @Test
+    public void earliestPlaceholderWinsForOverlappingDelimiters()
+    {
+        PlaceholderSyntax syntax = PlaceholderSyntax.compile( "ab*x", "b*y", "abc*z" );
+        assertEquals( "c", key( syntax, "abcy" ) );
+        assertEquals( "cd", key( syntax, "abcdx" ) );
+        assertEquals( "d", key( syntax, "abcdz" ) );
+        assertEquals( "a", key( PlaceholderSyntax.compile( "$*$", "${*}" ), "${a}$" ) );
+    }
+
+    @Test
+    public void automatonAgreesWithNaiveSearch()
+    {
+        String[] delimiters = { "${*}", "$*$", "aba*b", "ba*a", "@" };
+        PlaceholderSyntax syntax = PlaceholderSyntax.compile( delimiters );
+        Random random = new Random( 42 );
+        for ( int n = 0; n < 20000; n++ )
+        {
+            StringBuilder value = new StringBuilder();
+            for ( int i = random.nextInt( 12 ); i > 0; i-- )
+            {
+                value.append( "ab${}@x".charAt( random.nextInt( 7 ) ) );
+            }
+            String expected = naiveKey( delimiters, value.toString() );
+            assertEquals( value.toString(), expected, key( syntax, value.toString() ) );
+        }
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void emptyDelimiterIsRejected()
+    {
+        PlaceholderSyntax.compile( "${*" );
+    }
+
+    private static String key( PlaceholderSyntax syntax, String value )
+    {
+        PlaceholderSyntax.Match match = syntax.find( value, 0 );
+        return match == null ? null : value.substring( match.keyStart, match.keyEnd );
+    }
+
+    private static String naiveKey( String[] delimiters, String value )
+    {
+        for ( int start = 0; start < value.length(); start++ )
+        {
+            String best = null;
+            int bestLength = 0;
+            for ( String delimiter : delimiters )
+            {
+                int separator = delimiter.indexOf( '*' );
+                String prefix = separator < 0 ? delimiter : delimiter.substring( 0, separator );
+                String suffix = separator < 0 ? delimiter : delimiter.substring( separator + 1 );
+                int end = value.indexOf( suffix, start + prefix.length() );
+                if ( value.startsWith( prefix, start ) && end >= 0 && ( best == null || prefix.length() > bestLength ) )
+                {
+                    best = value.substring( start + prefix.length(), end );
+                    bestLength = prefix.length();
+                }
+            }
+            if ( best != null )
+            {
+                return best;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,98 @@
+package org.codehaus.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.apache.maven.execution.MavenSession;
+import org.junit.Assume;
+import org.junit.Test;
+
+/**
+ * Tests the flight recorder events. Compiling them needs the <code>jdk.jfr</code> API of JDK 11 or later, like the
+ * events themselves; recordings are skipped on a JVM that does not include the flight recorder.
+ */
+public class PluginEventsTest
+{
+    @SuppressWarnings( "deprecation" )
+    @Test
+    public void readingAndResolvingIsRecorded()
+        throws Exception
+    {
+        Assume.assumeTrue( PluginEvents.isAvailable() );
+        Path file = Files.createTempFile( "events", ".properties" );
+        Files.write( file, "a=${b}\nb=1\nc=2\n".getBytes( StandardCharsets.ISO_8859_1 ) );
+        MavenSession session = new MavenSession( null, null, null, null, null, null, null, null, new Properties(), null );
+        ReadPropertiesMojo mojo = new ReadPropertiesMojo();
+        mojo.setSession( session );
+        mojo.setFiles( new File[] { file.toFile() } );
+
+        Path dump = Files.createTempFile( "events", ".jfr" );
+        Recording recording = new Recording();
+        try
+        {
+            recording.enable( "org.codehaus.mojo.properties.Load" );
+            recording.enable( "org.codehaus.mojo.properties.Resolve" );
+            recording.start();
+            mojo.execute();
+            recording.stop();
+            recording.dump( dump );
+        }
+        finally
+        {
+            recording.close();
+        }
+
+        Map<String, RecordedEvent> events = new HashMap<String, RecordedEvent>();
+        for ( RecordedEvent event : RecordingFile.readAllEvents( dump ) )
+        {
+            events.put( event.getEventType().getName(), event );
+        }
+        RecordedEvent load = events.get( "org.codehaus.mojo.properties.Load" );
+        assertNotNull( load );
+        assertEquals( "File: " + file, load.getString( "resource" ) );
+        assertEquals( 15, load.getLong( "bytes" ) );
+        RecordedEvent resolve = events.get( "org.codehaus.mojo.properties.Resolve" );
+        assertNotNull( resolve );
+        assertEquals( 3, resolve.getInt( "keys" ) );
+        assertEquals( 1, resolve.getInt( "expansions" ) );
+    }
+
+    @Test
+    public void nothingIsCreatedWithoutRecording()
+    {
+        assertNull( PluginEvents.beginLoad() );
+        assertNull( PluginEvents.beginResolve() );
+        PluginEvents.commitLoad( null, "ignored", 0 );
+    }
+}
@@ -0,0 +1,258 @@
+package org.codehaus.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.util.Properties;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.junit.Test;
+
+/**
+ * Tests compiling properties into bundles and reading them back.
+ */
+public class PropertyBundleTest
+{
+    @Test
+    public void bundleContainsUnescapedValues()
+        throws IOException
+    {
+        Properties properties = new Properties();
+        properties.load( new StringReader( "b=line1\\nline2\na=caf\\u00e9\nc=${a}\n" ) );
+
+        PropertyBundle bundle = compile( properties );
+
+        assertEquals( 3, bundle.size() );
+        assertEquals( "a", bundle.keyAt( 0 ) );
+        assertEquals( "c", bundle.keyAt( 2 ) );
+        assertEquals( "café", bundle.get( "a" ) );
+        assertEquals( "line1\nline2", bundle.get( "b" ) );
+        assertEquals( "${a}", bundle.get( "c" ) );
+        assertNull( bundle.get( "0" ) );
+        assertNull( bundle.get( "b0" ) );
+        assertNull( bundle.get( "d" ) );
+    }
+
+    @Test
+    public void emptyBundle()
+        throws IOException
+    {
+        PropertyBundle bundle = compile( new Properties() );
+
+        assertEquals( 0, bundle.size() );
+        assertNull( bundle.get( "a" ) );
+    }
+
+    @SuppressWarnings( "deprecation" )
+    @Test
+    public void bundleIsReadAsProjectProperties()
+        throws Exception
+    {
+        Properties properties = new Properties();
+        for ( int i = 0; i < 1000; i++ )
+        {
+            properties.setProperty( "key" + i, "value" + i );
+        }
+        File file = File.createTempFile( "prop-test", PropertyBundle.EXTENSION );
+        file.deleteOnExit();
+        PropertyBundle.write( properties, file );
+
+        MavenSession session = new MavenSession( null, null, null, null, null, null, null, null, new Properties(), null );
+        ReadPropertiesMojo mojo = new ReadPropertiesMojo();
+        mojo.setSession( session );
+        mojo.setFiles( new File[] { file } );
+        mojo.execute();
+
+        assertEquals( properties, session.getUserProperties() );
+    }
+
+    @SuppressWarnings( "deprecation" )
+    @Test
+    public void truncatedBundleFailsNamingTheFile()
+        throws Exception
+    {
+        Properties properties = new Properties();
+        properties.setProperty( "key", "value" );
+        File file = File.createTempFile( "prop-test", PropertyBundle.EXTENSION );
+        file.deleteOnExit();
+        PropertyBundle.write( properties, file );
+        RandomAccessFile raf = new RandomAccessFile( file, "rw" );
+        try
+        {
+            raf.setLength( raf.length() - 2 );
+        }
+        finally
+        {
+            raf.close();
+        }
+
+        try
+        {
+            PropertyBundle.open( file ).copyTo( new Properties(), null );
+            fail();
+        }
+        catch ( IOException e )
+        {
+            assertTrue( e.getMessage(), e.getMessage().contains( file.toString() ) );
+        }
+
+        ReadPropertiesMojo mojo = new ReadPropertiesMojo();
+        mojo.setSession( new MavenSession( null, null, null, null, null, null, null, null, new Properties(), null ) );
+        mojo.setFiles( new File[] { file } );
+        try
+        {
+            mojo.execute();
+            fail();
+        }
+        catch ( MojoExecutionException e )
+        {
+            assertTrue( e.getMessage(), e.getMessage().contains( file.toString() ) );
+        }
+    }
+
+    @Test
+    public void indexLargerThanTheBundleFails()
+        throws IOException
+    {
+        File file = File.createTempFile( "prop-test", PropertyBundle.EXTENSION );
+        file.deleteOnExit();
+        PropertyBundle.write( new Properties(), file );
+        RandomAccessFile raf = new RandomAccessFile( file, "rw" );
+        try
+        {
+            raf.seek( 8 );
+            raf.writeInt( 1000 );
+        }
+        finally
+        {
+            raf.close();
+        }
+
+        try
+        {
+            PropertyBundle.open( file );
+            fail();
+        }
+        catch ( IOException e )
+        {
+            assertTrue( e.getMessage(), e.getMessage().contains( "1000 entries" ) );
+        }
+    }
+
+    @Test
+    public void compilingMergesBundlesAndSkipsTheOutput()
+        throws Exception
+    {
+        File directory = Files.createTempDirectory( "compile-properties" ).toFile();
+        Properties first = new Properties();
+        first.setProperty( "a", "1" );
+        PropertyBundle.write( first, new File( directory, "first" + PropertyBundle.EXTENSION ) );
+        File output = new File( directory, "all" + PropertyBundle.EXTENSION );
+        Properties stale = new Properties();
+        stale.setProperty( "stale", "from an earlier run" );
+        PropertyBundle.write( stale, output );
+
+        CompilePropertiesMojo mojo = new CompilePropertiesMojo();
+        mojo.setFiles( new File[] { directory }, output );
+        mojo.execute();
+
+        Properties compiled = new Properties();
+        PropertyBundle.open( output ).copyTo( compiled, null );
+        assertEquals( first, compiled );
+    }
+
+    @Test
+    public void relativePatternsAreResolvedAgainstTheProject()
+        throws Exception
+    {
+        File directory = Files.createTempDirectory( "compile-properties" ).toFile();
+        Properties properties = new Properties();
+        properties.setProperty( "a", "1" );
+        PropertyBundle.write( properties, new File( directory, "a" + PropertyBundle.EXTENSION ) );
+        File output = new File( directory, "target/all" + PropertyBundle.EXTENSION );
+
+        CompilePropertiesMojo mojo = new CompilePropertiesMojo();
+        mojo.setFiles( new File[] { new File( "*" + PropertyBundle.EXTENSION ) }, output );
+        mojo.setBasedir( directory );
+        mojo.execute();
+
+        Properties compiled = new Properties();
+        PropertyBundle.open( output ).copyTo( compiled, null );
+        assertEquals( properties, compiled );
+    }
+
+    @Test
+    public void patternMatchingNothingFailsUnlessQuiet()
+        throws Exception
+    {
+        File directory = Files.createTempDirectory( "compile-properties" ).toFile();
+        File output = new File( directory, "all" + PropertyBundle.EXTENSION );
+        PropertyBundle.write( new Properties(), output );
+
+        CompilePropertiesMojo mojo = new CompilePropertiesMojo();
+        mojo.setFiles( new File[] { new File( "*.properties" ), directory }, output );
+        mojo.setBasedir( directory );
+        try
+        {
+            mojo.execute();
+            fail( "a pattern matching nothing was skipped" );
+        }
+        catch ( MojoExecutionException e )
+        {
+            assertTrue( e.getMessage(), e.getMessage().endsWith( "*.properties" ) );
+        }
+
+        // the directory only contains the output, which does not count as a match either
+        mojo.setFiles( new File[] { directory }, output );
+        try
+        {
+            mojo.execute();
+            fail( "a directory without inputs was skipped" );
+        }
+        catch ( MojoExecutionException e )
+        {
+            assertTrue( e.getMessage(), e.getMessage().endsWith( directory.getPath() ) );
+        }
+
+        mojo.setFiles( new File[] { new File( "*.properties" ), directory }, output );
+        mojo.setQuiet( true );
+        mojo.execute();
+        Properties compiled = new Properties();
+        PropertyBundle.open( output ).copyTo( compiled, null );
+        assertTrue( compiled.isEmpty() );
+    }
+
+    private static PropertyBundle compile( Properties properties )
+        throws IOException
+    {
+        File file = File.createTempFile( "prop-test", PropertyBundle.EXTENSION );
+        file.deleteOnExit();
+        PropertyBundle.write( properties, file );
+        return PropertyBundle.open( file );
+    }
+}
@@ -1,21 +1,38 @@
 package org.codehaus.mojo.properties;
 
+import org.apache.maven.artifact.handler.ArtifactHandler;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.artifact.handler.manager.ArtifactHandlerManager;
+import org.apache.maven.artifact.repository.MavenArtifactRepository;
+import org.apache.maven.artifact.repository.layout.DefaultRepositoryLayout;
 import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.SystemStreamLog;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Map;
 import java.util.Properties;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class ReadPropertiesMojoTest {
     private static final String NEW_LINE = System.getProperty("line.separator");
@@ -129,6 +146,384 @@ public class ReadPropertiesMojoTest {
         assertEquals(testFileWithoutPrefix, userProperties.get( keyPrefix + testPropertyFileWithoutPrefix.getName()));
     }
 
+    @Test
+    public void readAsPropertyDecodesMultiByteCharacters() throws Exception {
+        File testFile = File.createTempFile("prop-test", ".txt");
+        testFile.deleteOnExit();
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            content.append("caf\u00e9 \u20ac ").append(i).append(NEW_LINE);
+        }
+        Files.write(testFile.toPath(), content.toString().getBytes(StandardCharsets.UTF_8));
+
+        // do the work
+        readPropertiesMojo.setReadFiles(new File[]{testFile});
+        readPropertiesMojo.execute();
+
+        // check results
+        assertEquals(content.toString(), sessionStub.getUserProperties().get(testFile.getName()));
+    }
+
+    @Test(expected = MojoExecutionException.class)
+    public void readAsPropertyFailsForTooLargeFile() throws Exception {
+        File testPropertyFile = getPropertyFileForTesting();
+
+        readPropertiesMojo.setReadFilesMaxSize(10);
+        readPropertiesMojo.setReadFiles(new File[]{testPropertyFile});
+        readPropertiesMojo.execute();
+    }
+
+    @Test
+    public void readPropertiesFromUrlsKeepsDeclarationOrder() throws Exception {
+        File first = getPropertyFileForTesting();
+        File second = File.createTempFile("prop-test", ".properties");
+        second.deleteOnExit();
+        FileWriter writer = new FileWriter(second);
+        try {
+            writer.write("test.property2=overridden" + NEW_LINE);
+        } finally {
+            writer.close();
+        }
+
+        // do the work
+        readPropertiesMojo.setUrls(new String[]{first.toURI().toString(), second.toURI().toString()});
+        readPropertiesMojo.execute();
+
+        // check results, the later URL takes precedence even though both were fetched concurrently
+        Properties userProperties = sessionStub.getUserProperties();
+        assertEquals(3, userProperties.size());
+        assertEquals("value1", userProperties.getProperty("test.property1"));
+        assertEquals("overridden", userProperties.getProperty("test.property2"));
+    }
+
+    @Test
+    public void readPropertiesFromGzipFile() throws Exception {
+        File testPropertyFile = getPropertyFileForTesting();
+        Properties testProperties = new Properties();
+        testProperties.load(new FileReader(testPropertyFile));
+
+        File compressed = File.createTempFile("prop-test", ".properties.gz");
+        compressed.deleteOnExit();
+        OutputStream out = new GZIPOutputStream(new FileOutputStream(compressed));
+        try {
+            Files.copy(testPropertyFile.toPath(), out);
+        } finally {
+            out.close();
+        }
+
+        // do the work
+        readPropertiesMojo.setFiles(new File[]{compressed});
+        readPropertiesMojo.execute();
+
+        // check results
+        assertEquals(testProperties, sessionStub.getUserProperties());
+    }
+
+    @Test
+    public void readPropertiesFromPatternInPathOrder() throws Exception {
+        Path directory = Files.createTempDirectory("prop-test");
+        Files.createDirectories(directory.resolve("b"));
+        Files.write(directory.resolve("a.properties"), "p1=a\np2=a\np3=a\n".getBytes(StandardCharsets.ISO_8859_1));
+        Files.write(directory.resolve("b/c.properties"), "p2=c\np3=c\n".getBytes(StandardCharsets.ISO_8859_1));
+        Files.write(directory.resolve("b/d.properties"), "p3=d\n".getBytes(StandardCharsets.ISO_8859_1));
+        Files.write(directory.resolve("b/ignored.txt"), "p1=ignored\n".getBytes(StandardCharsets.ISO_8859_1));
+
+        // do the work
+        readPropertiesMojo.setFiles(new File[]{new File(directory.toFile(), "**/*.properties")});
+        readPropertiesMojo.execute();
+
+        // check results, later files in path order take precedence
+        Properties userProperties = sessionStub.getUserProperties();
+        assertEquals(3, userProperties.size());
+        assertEquals("a", userProperties.getProperty("p1"));
+        assertEquals("c", userProperties.getProperty("p2"));
+        assertEquals("d", userProperties.getProperty("p3"));
+    }
+
+    @Test
+    public void readPropertiesFromDirectory() throws Exception {
+        Path directory = Files.createTempDirectory("prop-test");
+        Files.write(directory.resolve("a.properties"), "p1=a\n".getBytes(StandardCharsets.ISO_8859_1));
+        Files.write(directory.resolve("ignored.txt"), "p2=ignored\n".getBytes(StandardCharsets.ISO_8859_1));
+
+        // do the work
+        readPropertiesMojo.setKeyPrefix("dir.");
+        readPropertiesMojo.setFiles(new File[]{directory.toFile()});
+        readPropertiesMojo.execute();
+
+        // check results
+        Properties userProperties = sessionStub.getUserProperties();
+        assertEquals(1, userProperties.size());
+        assertEquals("a", userProperties.getProperty("dir.p1"));
+    }
+
+    @Test
+    public void readPropertiesFromArchiveEntries() throws Exception {
+        File archive = File.createTempFile("prop-test", ".jar");
+        archive.deleteOnExit();
+        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(archive));
+        try {
+            out.putNextEntry(new ZipEntry("config/a.properties"));
+            out.write("p1=a\np2=a\n".getBytes(StandardCharsets.ISO_8859_1));
+            out.putNextEntry(new ZipEntry("config/b.json"));
+            out.write("{\"p2\": \"b\"}".getBytes(StandardCharsets.UTF_8));
+        } finally {
+            out.close();
+        }
+
+        // do the work
+        readPropertiesMojo.setUrls(new String[]{
+                "zip:" + archive.getAbsolutePath() + "!/config/a.properties",
+                "zip:" + archive.getAbsolutePath() + "!/config/b.json"});
+        readPropertiesMojo.execute();
+
+        // check results
+        Properties userProperties = sessionStub.getUserProperties();
+        assertEquals(2, userProperties.size());
+        assertEquals("a", userProperties.getProperty("p1"));
+        assertEquals("b", userProperties.getProperty("p2"));
+    }
+
+    @Test
+    public void relativePatternsAreResolvedAgainstBasedir() throws Exception {
+        Path directory = Files.createTempDirectory("prop-test");
+        Files.write(directory.resolve("a.properties"), "p1=a\n".getBytes(StandardCharsets.ISO_8859_1));
+        Files.write(Files.createDirectory(directory.resolve("config")).resolve("b.properties"),
+                "p2=b\n".getBytes(StandardCharsets.ISO_8859_1));
+
+        // do the work
+        readPropertiesMojo.setBasedir(directory.toFile());
+        readPropertiesMojo.setFiles(new File[]{new File("*.properties"), new File("config")});
+        readPropertiesMojo.execute();
+
+        // check results
+        Properties userProperties = sessionStub.getUserProperties();
+        assertEquals(2, userProperties.size());
+        assertEquals("a", userProperties.getProperty("p1"));
+        assertEquals("b", userProperties.getProperty("p2"));
+    }
+
+    @SuppressWarnings( "deprecation" )
+    @Test
+    public void readPropertiesFromArtifactEntries() throws Exception {
+        Path repository = Files.createTempDirectory("prop-test");
+        Path directory = Files.createDirectories(repository.resolve("org/example/config/1.0"));
+        writeArchive(directory.resolve("config-1.0.jar").toFile(), "a.properties", "p1=jar\n");
+        writeArchive(directory.resolve("config-1.0-tests.jar").toFile(), "a.properties", "p2=test-jar\n");
+        writeArchive(directory.resolve("config-1.0-site.jar").toFile(), "a.properties", "p3=classified\n");
+
+        sessionStub = new MavenSession(null, null, new MavenArtifactRepository("local",
+                repository.toUri().toString(), new DefaultRepositoryLayout(), null, null),
+                null, null, null, null, null, new Properties(), null);
+        readPropertiesMojo.setSession(sessionStub);
+        readPropertiesMojo.setArtifactHandlerManager(new ArtifactHandlerManager() {
+            public ArtifactHandler getArtifactHandler(String type) {
+                if (!type.equals("test-jar")) {
+                    return new DefaultArtifactHandler(type);
+                }
+                DefaultArtifactHandler handler = new DefaultArtifactHandler(type) {
+                    @Override
+                    public String getClassifier() {
+                        return "tests";
+                    }
+                };
+                handler.setExtension("jar");
+                return handler;
+            }
+
+            public void addHandlers(Map<String, ArtifactHandler> handlers) {
+            }
+        });
+
+        // do the work
+        readPropertiesMojo.setUrls(new String[]{
+                "artifact:org.example:config:1.0!/a.properties",
+                "artifact:org.example:config:1.0:test-jar!/a.properties",
+                "artifact:org.example:config:1.0:jar:site!/a.properties"});
+        readPropertiesMojo.execute();
+
+        // check results
+        Properties userProperties = sessionStub.getUserProperties();
+        assertEquals(3, userProperties.size());
+        assertEquals("jar", userProperties.getProperty("p1"));
+        assertEquals("test-jar", userProperties.getProperty("p2"));
+        assertEquals("classified", userProperties.getProperty("p3"));
+    }
+
+    @Test(expected = MojoExecutionException.class)
+    public void missingArchiveEntryFails() throws Exception {
+        File archive = File.createTempFile("prop-test", ".zip");
+        archive.deleteOnExit();
+        new ZipOutputStream(new FileOutputStream(archive)).close();
+
+        readPropertiesMojo.setUrls(new String[]{"zip:" + archive.getAbsolutePath() + "!/missing.properties"});
+        readPropertiesMojo.execute();
+    }
+
+    @Test
+    public void provenanceRecordsLastFileAndLine() throws Exception {
+        Path directory = Files.createTempDirectory("prop-test");
+        Path a = directory.resolve("a.properties");
+        Path b = directory.resolve("b.properties");
+        Files.write(a, "# comment\np1=a\np2=${p1}\\\n  continued\n\np3 = a\n".getBytes(StandardCharsets.ISO_8859_1));
+        Files.write(b, "p3=${p2}\n\\u0070\\u0034:b\r\np5=\\\r\n  c\\\n".getBytes(StandardCharsets.ISO_8859_1));
+
+        // do the work
+        readPropertiesMojo.setProvenanceKeys(new String[]{"p1", "p2", "p3", "p4", "missing"});
+        readPropertiesMojo.setFiles(new File[]{a.toFile(), b.toFile()});
+        readPropertiesMojo.execute();
+
+        // check results
+        Provenance provenance = readPropertiesMojo.getProvenance();
+        assertEquals("File: " + a + ":2", provenance.describe("p1"));
+        assertEquals("File: " + a + ":3", provenance.describe("p2"));
+        assertEquals("File: " + b + ":1", provenance.describe("p3"));
+        assertEquals("File: " + b + ":2", provenance.describe("p4"));
+        assertEquals(null, provenance.describe("missing"));
+        assertEquals(null, provenance.describe("p5"));
+        assertEquals("acontinued", sessionStub.getUserProperties().getProperty("p3"));
+        assertEquals("b", sessionStub.getUserProperties().getProperty("p4"));
+        assertEquals("c", sessionStub.getUserProperties().getProperty("p5"));
+    }
+
+    @Test
+    public void provenanceLogsPlaceholdersWithTheConfiguredDelimiters() throws Exception {
+        Path file = Files.createTempFile("prop-test", ".properties");
+        Files.write(file, "p1=a\np2=@p1@\n".getBytes(StandardCharsets.ISO_8859_1));
+        final StringBuilder log = new StringBuilder();
+        readPropertiesMojo.setLog(new SystemStreamLog() {
+            @Override
+            public void info(CharSequence content) {
+                log.append(content).append('\n');
+            }
+        });
+
+        // do the work
+        readPropertiesMojo.setPlaceholderDelimiters(new String[]{"@"});
+        readPropertiesMojo.setProvenanceKeys(new String[]{"p2"});
+        readPropertiesMojo.setFiles(new File[]{file.toFile()});
+        readPropertiesMojo.execute();
+
+        // check results
+        assertTrue(log.toString(), log.toString().contains("Provenance:   @p1@=a from "));
+        assertFalse(log.toString(), log.toString().contains("${p1}"));
+    }
+
+    @Test
+    public void resolveOnlyExpandsRequestedKeysAndTheirDependencies() throws Exception {
+        Path file = Files.createTempFile("prop-test", ".properties");
+        Files.write(file, "a=${b}-${c}\nb=${c}\nc=1\nd=${c}\nab=${d}\n".getBytes(StandardCharsets.ISO_8859_1));
+
+        // do the work
+        readPropertiesMojo.setResolveOnly(new String[]{"a", "x*"});
+        readPropertiesMojo.setFiles(new File[]{file.toFile()});
+        readPropertiesMojo.execute();
+
+        // check results, d and ab are not needed by a and stay raw
+        Properties userProperties = sessionStub.getUserProperties();
+        assertEquals("1-1", userProperties.getProperty("a"));
+        assertEquals("1", userProperties.getProperty("b"));
+        assertEquals("1", userProperties.getProperty("c"));
+        assertEquals("${c}", userProperties.getProperty("d"));
+        assertEquals("${d}", userProperties.getProperty("ab"));
+    }
+
+    @Test
+    public void resolveOnlyMatchesPatterns() throws Exception {
+        Path file = Files.createTempFile("prop-test", ".properties");
+        Files.write(file, "a=${ab}\nab=${c}\nc=1\nd=${c}\n".getBytes(StandardCharsets.ISO_8859_1));
+
+        // do the work
+        readPropertiesMojo.setResolveOnly(new String[]{"a?"});
+        readPropertiesMojo.setFiles(new File[]{file.toFile()});
+        readPropertiesMojo.execute();
+
+        // check results
+        Properties userProperties = sessionStub.getUserProperties();
+        assertEquals("${ab}", userProperties.getProperty("a"));
+        assertEquals("1", userProperties.getProperty("ab"));
+        assertEquals("${c}", userProperties.getProperty("d"));
+    }
+
+    @Test
+    public void readPropertiesVerifiesChecksumOfFileAsStored() throws Exception {
+        File compressed = File.createTempFile("prop-test", ".properties.gz");
+        compressed.deleteOnExit();
+        OutputStream out = new GZIPOutputStream(new FileOutputStream(compressed));
+        try {
+            Files.copy(getPropertyFileForTesting().toPath(), out);
+        } finally {
+            out.close();
+        }
+        Properties checksums = new Properties();
+        checksums.setProperty(compressed.getPath(), sha256(compressed));
+
+        // do the work
+        readPropertiesMojo.setFiles(new File[]{compressed});
+        readPropertiesMojo.setChecksums(checksums);
+        readPropertiesMojo.execute();
+
+        // check results
+        assertEquals("value1", sessionStub.getUserProperties().getProperty("test.property1"));
+    }
+
+    @Test
+    public void readPropertiesVerifiesChecksumOfUrl() throws Exception {
+        File file = getPropertyFileForTesting();
+        String url = file.toURI().toString();
+        Properties checksums = new Properties();
+        checksums.setProperty(url, sha256(file).toUpperCase());
+
+        // do the work
+        readPropertiesMojo.setUrls(new String[]{url});
+        readPropertiesMojo.setChecksums(checksums);
+        readPropertiesMojo.execute();
+
+        // check results
+        assertEquals("value1", sessionStub.getUserProperties().getProperty("test.property1"));
+    }
+
+    @Test
+    public void checksumMismatchFailsBeforeAnyPropertyIsAdded() throws Exception {
+        File first = getPropertyFileForTesting();
+        File second = getPropertyFileForTesting("second.");
+        Properties checksums = new Properties();
+        checksums.setProperty(first.getPath(), sha256(first));
+        checksums.setProperty(second.getPath(), sha256(first));
+
+        // do the work
+        readPropertiesMojo.setFiles(new File[]{first, second});
+        readPropertiesMojo.setChecksums(checksums);
+        try {
+            readPropertiesMojo.execute();
+            fail("checksum mismatch not detected");
+        } catch (MojoExecutionException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains(sha256(second)));
+        }
+
+        // check results
+        assertEquals(0, sessionStub.getUserProperties().size());
+    }
+
+    @Test(expected = MojoExecutionException.class)
+    public void checksumOfEntryThatIsNotReadFails() throws Exception {
+        File file = getPropertyFileForTesting();
+        Properties checksums = new Properties();
+        checksums.setProperty(file.getPath() + ".missing", sha256(file));
+
+        readPropertiesMojo.setFiles(new File[]{file});
+        readPropertiesMojo.setChecksums(checksums);
+        readPropertiesMojo.execute();
+    }
+
+    private static String sha256(File file) throws Exception {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : MessageDigest.getInstance("SHA-256").digest(Files.readAllBytes(file.toPath()))) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
     private File getPropertyFileForTesting() throws IOException {
         return getPropertyFileForTesting(null);
     }
@@ -152,4 +547,13 @@ public class ReadPropertiesMojoTest {
         return f;
     }
 
+    private static void writeArchive(File archive, String entry, String content) throws IOException {
+        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(archive));
+        try {
+            out.putNextEntry(new ZipEntry(entry));
+            out.write(content.getBytes(StandardCharsets.ISO_8859_1));
+        } finally {
+            out.close();
+        }
+    }
 }
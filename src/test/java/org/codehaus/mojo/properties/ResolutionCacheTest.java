@@ -0,0 +1,179 @@
+package org.codehaus.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import static org.junit.Assert.*;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.maven.execution.MavenSession;
+import org.junit.Test;
+
+/**
+ * Tests the cache of resolution outcomes.
+ */
+public class ResolutionCacheTest
+{
+    private final PropertyResolver resolver = new PropertyResolver();
+
+    @Test
+    public void fingerprintDependsOnContentOnly()
+    {
+        Properties first = new Properties();
+        first.setProperty( "a", "1" );
+        first.setProperty( "b", "2" );
+        Properties second = new Properties();
+        second.setProperty( "b", "2" );
+        second.setProperty( "a", "1" );
+        Properties swapped = new Properties();
+        swapped.setProperty( "a", "2" );
+        swapped.setProperty( "b", "1" );
+
+        assertEquals( ResolutionCache.fingerprint( first ), ResolutionCache.fingerprint( second ) );
+        assertFalse( ResolutionCache.fingerprint( first ).equals( ResolutionCache.fingerprint( swapped ) ) );
+    }
+
+    @Test
+    public void outcomeIsReusedWhileExternalLookupsAreUnchanged()
+    {
+        Properties properties = new Properties();
+        properties.setProperty( "p1", "${p2}" );
+        properties.setProperty( "p2", "${project.value}" );
+        Properties projectProperties = new Properties();
+        projectProperties.setProperty( "project.value", "value" );
+
+        ResolutionCache cache = new ResolutionCache( 10, 100 );
+        ResolutionCache.Fingerprint fingerprint = ResolutionCache.fingerprint( properties );
+        Map<String, String> lookups = new HashMap<String, String>();
+        resolver.recordExternalLookups( lookups );
+        assertEquals( "value", resolver.getPropertyValue( "p1", properties, projectProperties, null ) );
+        resolver.recordExternalLookups( null );
+        assertEquals( Collections.singletonMap( "project.value", "value" ), lookups );
+
+        Map<String, String> resolved = Collections.singletonMap( "p1", "value" );
+        cache.put( fingerprint, resolved, lookups );
+
+        assertEquals( resolved, cache.get( fingerprint, resolver, projectProperties, null ) );
+
+        projectProperties.setProperty( "project.value", "changed" );
+        assertNull( cache.get( fingerprint, resolver, projectProperties, null ) );
+    }
+
+    @Test
+    public void unresolvedLookupIsCheckedToo()
+    {
+        Properties projectProperties = new Properties();
+        ResolutionCache cache = new ResolutionCache( 10, 100 );
+        ResolutionCache.Fingerprint fingerprint = ResolutionCache.fingerprint( new Properties() );
+        cache.put( fingerprint, Collections.<String, String>emptyMap(),
+                   Collections.<String, String>singletonMap( "undefined", null ) );
+
+        assertNotNull( cache.get( fingerprint, resolver, projectProperties, null ) );
+
+        projectProperties.setProperty( "undefined", "now defined" );
+        assertNull( cache.get( fingerprint, resolver, projectProperties, null ) );
+    }
+
+    @Test
+    public void leastRecentlyUsedEntriesAreEvicted()
+    {
+        ResolutionCache cache = new ResolutionCache( 2, 100 );
+        Properties projectProperties = new Properties();
+        ResolutionCache.Fingerprint[] fingerprints = new ResolutionCache.Fingerprint[3];
+        for ( int i = 0; i < fingerprints.length; i++ )
+        {
+            Properties properties = new Properties();
+            properties.setProperty( "key", String.valueOf( i ) );
+            fingerprints[i] = ResolutionCache.fingerprint( properties );
+        }
+
+        Map<String, String> empty = Collections.emptyMap();
+        cache.put( fingerprints[0], empty, empty );
+        cache.put( fingerprints[1], empty, empty );
+        cache.get( fingerprints[0], resolver, projectProperties, null );
+        cache.put( fingerprints[2], empty, empty );
+
+        assertNotNull( cache.get( fingerprints[0], resolver, projectProperties, null ) );
+        assertNull( cache.get( fingerprints[1], resolver, projectProperties, null ) );
+        assertNotNull( cache.get( fingerprints[2], resolver, projectProperties, null ) );
+    }
+
+    @Test
+    public void cachedResolutionFollowsProjectProperties()
+        throws Exception
+    {
+        Properties session = new Properties();
+        session.setProperty( "fromProject", "${cache.test.project}" );
+        Properties projectProperties = new Properties();
+        projectProperties.setProperty( "cache.test.project", "first" );
+
+        assertEquals( "first", resolveCached( session, projectProperties ).getProperty( "fromProject" ) );
+        projectProperties.setProperty( "cache.test.project", "second" );
+        assertEquals( "second", resolveCached( session, projectProperties ).getProperty( "fromProject" ) );
+    }
+
+    @Test
+    public void cachedResolutionFollowsSystemProperties()
+        throws Exception
+    {
+        Properties session = new Properties();
+        session.setProperty( "fromSystem", "${cache.test.system}" );
+        session.setProperty( "undefined", "${cache.test.undefined}" );
+        try
+        {
+            System.setProperty( "cache.test.system", "first" );
+            Properties resolved = resolveCached( session, new Properties() );
+            assertEquals( "first", resolved.getProperty( "fromSystem" ) );
+            assertEquals( "${cache.test.undefined}", resolved.getProperty( "undefined" ) );
+
+            System.setProperty( "cache.test.system", "second" );
+            System.setProperty( "cache.test.undefined", "defined" );
+            resolved = resolveCached( session, new Properties() );
+            assertEquals( "second", resolved.getProperty( "fromSystem" ) );
+            assertEquals( "defined", resolved.getProperty( "undefined" ) );
+        }
+        finally
+        {
+            System.clearProperty( "cache.test.system" );
+            System.clearProperty( "cache.test.undefined" );
+        }
+    }
+
+    /**
+     * Resolves a copy of the properties with a cached resolution, as a later execution in the same build would.
+     */
+    @SuppressWarnings( "deprecation" )
+    private static Properties resolveCached( Properties properties, Properties projectProperties )
+        throws Exception
+    {
+        Properties userProperties = (Properties) properties.clone();
+        MavenSession session = new MavenSession( null, null, null, null, null, null, null, null, userProperties, null );
+        ReadPropertiesMojo mojo = new ReadPropertiesMojo();
+        mojo.setSession( session );
+        mojo.setProjectProperties( projectProperties );
+        mojo.setCacheResolution( true );
+        mojo.execute();
+        return session.getUserProperties();
+    }
+}
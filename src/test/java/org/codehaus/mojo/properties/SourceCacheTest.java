@@ -0,0 +1,168 @@
+package org.codehaus.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the cache of parsed files and its invalidation by file system events.
+ */
+public class SourceCacheTest
+{
+    private Path directory;
+
+    @Before
+    public void createDirectory()
+        throws IOException
+    {
+        directory = Files.createTempDirectory( "source-cache" );
+    }
+
+    @Test
+    public void changedFileIsInvalidated()
+        throws Exception
+    {
+        SourceCache cache = new SourceCache( 10, 100 );
+        Path file = write( "a.properties" );
+        Path other = write( "b.properties" );
+
+        cache.put( file, properties( 1 ), cache.watch( file ) );
+        cache.put( other, properties( 1 ), cache.watch( other ) );
+        assertNotNull( cache.get( file ) );
+
+        Files.write( file, "changed=true".getBytes( StandardCharsets.ISO_8859_1 ) );
+
+        long deadline = System.currentTimeMillis() + 30000;
+        while ( cache.get( file ) != null && System.currentTimeMillis() < deadline )
+        {
+            Thread.sleep( 10 );
+        }
+        assertNull( cache.get( file ) );
+        assertNotNull( cache.get( other ) );
+    }
+
+    @Test
+    public void fileChangedWhileParsingIsNotCached()
+        throws Exception
+    {
+        SourceCache cache = new SourceCache( 10, 100 );
+        Path file = write( "a.properties" );
+
+        SourceCache.Stamp stamp = cache.watch( file );
+        Files.write( file, "changed=true".getBytes( StandardCharsets.ISO_8859_1 ) );
+        Thread.sleep( 100 );
+        long deadline = System.currentTimeMillis() + 30000;
+        do
+        {
+            cache.put( file, properties( 1 ), stamp );
+            Thread.sleep( 10 );
+        }
+        while ( cache.get( file ) != null && System.currentTimeMillis() < deadline );
+
+        assertNull( cache.get( file ) );
+    }
+
+    @Test
+    public void changedFileIsMissedBeforeItsEventArrives()
+        throws Exception
+    {
+        SourceCache cache = new SourceCache( 10, 100 );
+        Path file = write( "a.properties" );
+        cache.put( file, properties( 1 ), cache.watch( file ) );
+
+        // the watcher cannot invalidate the entry while the test holds the lock of the cache
+        synchronized ( cache )
+        {
+            Files.write( file, "changed=true".getBytes( StandardCharsets.ISO_8859_1 ) );
+            assertNull( cache.get( file ) );
+        }
+    }
+
+    @Test
+    public void lostEventsInvalidateEveryDirectory()
+        throws Exception
+    {
+        SourceCache cache = new SourceCache( 10, 100 );
+        Path file = write( "a.properties" );
+        Path other = Files.write( Files.createDirectory( directory.resolve( "other" ) ).resolve( "b.properties" ),
+                                  "key=value".getBytes( StandardCharsets.ISO_8859_1 ) );
+        SourceCache.Stamp stamp = cache.watch( other );
+        cache.put( file, properties( 1 ), cache.watch( file ) );
+        assertNotNull( cache.get( file ) );
+
+        cache.invalidateAll();
+
+        assertNull( cache.get( file ) );
+        cache.put( other, properties( 1 ), stamp );
+        assertNull( cache.get( other ) );
+    }
+
+    @Test
+    public void leastRecentlyUsedFilesAreEvicted()
+        throws Exception
+    {
+        SourceCache cache = new SourceCache( 2, 5 );
+        Path a = write( "a.properties" );
+        Path b = write( "b.properties" );
+        Path c = write( "c.properties" );
+
+        cache.put( a, properties( 1 ), cache.watch( a ) );
+        cache.put( b, properties( 1 ), cache.watch( b ) );
+        cache.get( a );
+        cache.put( c, properties( 1 ), cache.watch( c ) );
+
+        assertNotNull( cache.get( a ) );
+        assertNull( cache.get( b ) );
+        assertNotNull( cache.get( c ) );
+
+        // exceeds the number of properties until the least recently used file is evicted
+        cache.put( b, properties( 4 ), cache.watch( b ) );
+
+        assertNull( cache.get( a ) );
+        assertNotNull( cache.get( c ) );
+        assertNotNull( cache.get( b ) );
+    }
+
+    private Path write( String name )
+        throws IOException
+    {
+        return Files.write( directory.resolve( name ), "key=value".getBytes( StandardCharsets.ISO_8859_1 ) );
+    }
+
+    private static Properties properties( int size )
+    {
+        Properties properties = new Properties();
+        for ( int i = 0; i < size; i++ )
+        {
+            properties.setProperty( "key" + i, "value" );
+        }
+        return properties;
+    }
+}
@@ -0,0 +1,139 @@
+package org.codehaus.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+
+import org.junit.Test;
+
+/**
+ * Tests flattening JSON and YAML sources into properties.
+ */
+public class SourceFormatTest
+{
+    @Test
+    public void formatIsChosenByExtension()
+    {
+        assertEquals( SourceFormat.PROPERTIES, SourceFormat.forName( "a.properties" ) );
+        assertEquals( SourceFormat.JSON, SourceFormat.forName( "/config/a.json" ) );
+        assertEquals( SourceFormat.JSON, SourceFormat.forName( "a.JSON.gz" ) );
+        assertEquals( SourceFormat.YAML, SourceFormat.forName( "a.yml" ) );
+        assertEquals( SourceFormat.YAML, SourceFormat.forName( "a.yaml.gz" ) );
+        assertEquals( SourceFormat.PROPERTIES, SourceFormat.forName( "json" ) );
+    }
+
+    @Test
+    public void jsonIsFlattened()
+        throws IOException
+    {
+        Properties properties = load( SourceFormat.JSON, "{\n"
+            + "  \"db\": { \"url\": \"jdbc:h2:${env.HOME}\", \"port\": 5432, \"ssl\": true, \"pool\": null },\n"
+            + "  \"hosts\": [ \"a\", { \"name\": \"b\\u00e9\\n\" }, [ 1.5e3 ] ],\n"
+            + "  \"empty\": {}, \"none\": []\n"
+            + "}" );
+
+        assertEquals( 7, properties.size() );
+        assertEquals( "jdbc:h2:${env.HOME}", properties.getProperty( "db.url" ) );
+        assertEquals( "5432", properties.getProperty( "db.port" ) );
+        assertEquals( "true", properties.getProperty( "db.ssl" ) );
+        assertEquals( "", properties.getProperty( "db.pool" ) );
+        assertEquals( "a", properties.getProperty( "hosts[0]" ) );
+        assertEquals( "bé\n", properties.getProperty( "hosts[1].name" ) );
+        assertEquals( "1.5e3", properties.getProperty( "hosts[2][0]" ) );
+    }
+
+    @Test
+    public void invalidJsonIsRejected()
+    {
+        assertInvalid( SourceFormat.JSON, "[ \"a\" ]" );
+        assertInvalid( SourceFormat.JSON, "{ \"a\": }" );
+        assertInvalid( SourceFormat.JSON, "{ \"a\": \"b\" " );
+        assertInvalid( SourceFormat.JSON, "{ \"a\": \"b\" } x" );
+    }
+
+    @Test
+    public void yamlIsFlattened()
+        throws IOException
+    {
+        Properties properties = load( SourceFormat.YAML, "db:\n"
+            + "  url: jdbc:h2:${env.HOME}\n"
+            + "  port: 5432\n"
+            + "  pool: ~\n"
+            + "hosts:\n"
+            + "  - a\n"
+            + "  - name: \"b\\n\"\n"
+            + "  - [ 1.5e3 ]\n"
+            + "quoted: 'null'\n" );
+
+        assertEquals( 7, properties.size() );
+        assertEquals( "jdbc:h2:${env.HOME}", properties.getProperty( "db.url" ) );
+        assertEquals( "5432", properties.getProperty( "db.port" ) );
+        assertEquals( "", properties.getProperty( "db.pool" ) );
+        assertEquals( "a", properties.getProperty( "hosts[0]" ) );
+        assertEquals( "b\n", properties.getProperty( "hosts[1].name" ) );
+        assertEquals( "1.5e3", properties.getProperty( "hosts[2][0]" ) );
+        assertEquals( "null", properties.getProperty( "quoted" ) );
+    }
+
+    @Test
+    public void laterYamlDocumentsOverride()
+        throws IOException
+    {
+        Properties properties = load( SourceFormat.YAML, "a: 1\nb: 1\n---\nb: 2\n" );
+
+        assertEquals( "1", properties.getProperty( "a" ) );
+        assertEquals( "2", properties.getProperty( "b" ) );
+    }
+
+    @Test
+    public void unsupportedYamlIsRejected()
+    {
+        assertInvalid( SourceFormat.YAML, "- a\n" );
+        assertInvalid( SourceFormat.YAML, "a: &anchor 1\nb: *anchor\n" );
+        assertInvalid( SourceFormat.YAML, "a: [\n" );
+    }
+
+    private static Properties load( SourceFormat format, String content )
+        throws IOException
+    {
+        Properties properties = new Properties();
+        format.load( new ByteArrayInputStream( content.getBytes( StandardCharsets.UTF_8 ) ), properties );
+        return properties;
+    }
+
+    private static void assertInvalid( SourceFormat format, String content )
+    {
+        try
+        {
+            load( format, content );
+            fail( content );
+        }
+        catch ( IOException e )
+        {
+            // expected
+        }
+    }
+}
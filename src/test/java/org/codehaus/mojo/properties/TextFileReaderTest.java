@@ -0,0 +1,84 @@
+package org.codehaus.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Test;
+
+/**
+ * Tests reading whole files as text.
+ */
+public class TextFileReaderTest
+{
+    @Test
+    public void charactersSpanningChunksAreDecoded()
+        throws IOException
+    {
+        StringBuilder text = new StringBuilder();
+        for ( int i = 0; i < 10000; i++ )
+        {
+            text.append( "café €😀 " );
+        }
+        Path file = write( text.toString().getBytes( StandardCharsets.UTF_8 ) );
+
+        assertEquals( text.toString(), TextFileReader.read( file, StandardCharsets.UTF_8, 0 ) );
+        assertEquals( "", TextFileReader.read( write( new byte[0] ), StandardCharsets.UTF_8, 0 ) );
+    }
+
+    @Test
+    public void malformedInputIsReplaced()
+        throws IOException
+    {
+        Path file = write( new byte[] { 'a', (byte) 0xC3, 'b' } );
+
+        assertEquals( "a�b", TextFileReader.read( file, StandardCharsets.UTF_8, 0 ) );
+        assertEquals( "aÃb", TextFileReader.read( file, StandardCharsets.ISO_8859_1, 0 ) );
+    }
+
+    @Test
+    public void filesAtTheLimitAreRead()
+        throws IOException
+    {
+        assertEquals( "0123456789", TextFileReader.read( write( "0123456789".getBytes( StandardCharsets.UTF_8 ) ),
+                                                         StandardCharsets.UTF_8, 10 ) );
+    }
+
+    @Test( expected = TextFileReader.FileTooLargeException.class )
+    public void filesOverTheLimitAreRejected()
+        throws IOException
+    {
+        TextFileReader.read( write( new byte[11] ), StandardCharsets.UTF_8, 10 );
+    }
+
+    private static Path write( byte[] content )
+        throws IOException
+    {
+        Path file = Files.createTempFile( "text", ".txt" );
+        file.toFile().deleteOnExit();
+        return Files.write( file, content );
+    }
+}
@@ -0,0 +1,289 @@
+package org.codehaus.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import static org.junit.Assert.*;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.MalformedURLException;
+import java.net.ServerSocket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.net.ssl.SSLHandshakeException;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Tests fetching URLs against an in-process server that delays, drops connections and returns errors.
+ */
+public class UrlFetcherTest
+{
+    private static final byte[] BODY = "key=value\n".getBytes( StandardCharsets.ISO_8859_1 );
+
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private final ExecutorService handlers = Executors.newCachedThreadPool();
+
+    private HttpServer server;
+
+    @Before
+    public void startServer()
+        throws IOException
+    {
+        server = HttpServer.create( new InetSocketAddress( "127.0.0.1", 0 ), 0 );
+        // a stalled request must not block the retry
+        server.setExecutor( handlers );
+        server.start();
+    }
+
+    @After
+    public void stopServer()
+    {
+        server.stop( 0 );
+        handlers.shutdownNow();
+    }
+
+    @Test
+    public void bodyIsFetched()
+        throws IOException
+    {
+        URL url = serve( "/ok", 0, 0 );
+
+        assertArrayEquals( BODY, fetcher( 0 ).fetch( url ).getBytes() );
+        assertEquals( 1, requests.get() );
+    }
+
+    @Test
+    public void serverErrorIsRetried()
+        throws IOException
+    {
+        URL url = serve( "/flaky", 2, 503 );
+
+        assertArrayEquals( BODY, fetcher( 2 ).fetch( url ).getBytes() );
+        assertEquals( 3, requests.get() );
+    }
+
+    @Test
+    public void droppedConnectionIsRetried()
+        throws IOException
+    {
+        URL url = serve( "/dropped", 1, -1 );
+
+        assertArrayEquals( BODY, fetcher( 1 ).fetch( url ).getBytes() );
+        assertEquals( 2, requests.get() );
+    }
+
+    @Test
+    public void slowResponseTimesOutAndIsRetried()
+        throws IOException
+    {
+        URL url = serve( "/slow", 1, -2 );
+
+        assertArrayEquals( BODY, fetcher( 1 ).fetch( url ).getBytes() );
+        assertEquals( 2, requests.get() );
+    }
+
+    @Test
+    public void retriesAreLimited()
+        throws IOException
+    {
+        URL url = serve( "/broken", Integer.MAX_VALUE, 500 );
+
+        try
+        {
+            fetcher( 2 ).fetch( url );
+            fail();
+        }
+        catch ( IOException e )
+        {
+            assertTrue( e.getMessage().contains( "500" ) );
+        }
+        assertEquals( 3, requests.get() );
+    }
+
+    @Test
+    public void missingResourceIsNotRetried()
+        throws IOException
+    {
+        URL url = serve( "/missing", Integer.MAX_VALUE, 404 );
+
+        try
+        {
+            fetcher( 2 ).fetch( url );
+            fail();
+        }
+        catch ( FileNotFoundException e )
+        {
+            // expected
+        }
+        assertEquals( 1, requests.get() );
+    }
+
+    @Test
+    public void throttledRequestIsRetried()
+        throws IOException
+    {
+        URL url = serve( "/throttled", 1, 429 );
+
+        assertArrayEquals( BODY, fetcher( 1 ).fetch( url ).getBytes() );
+        assertEquals( 2, requests.get() );
+    }
+
+    @Test
+    public void clientErrorIsNotRetried()
+        throws IOException
+    {
+        URL url = serve( "/forbidden", Integer.MAX_VALUE, 403 );
+
+        try
+        {
+            fetcher( 2 ).fetch( url );
+            fail();
+        }
+        catch ( IOException e )
+        {
+            assertTrue( e.getMessage().contains( "403" ) );
+        }
+        assertEquals( 1, requests.get() );
+    }
+
+    @Test
+    public void refusedConnectionIsNotRetried()
+        throws IOException
+    {
+        ServerSocket socket = new ServerSocket( 0, 1, InetAddress.getByName( "127.0.0.1" ) );
+        int port = socket.getLocalPort();
+        socket.close();
+        CountingLog log = new CountingLog();
+
+        try
+        {
+            new UrlFetcher( 1000, 200, 2, 10, log ).fetch( new URL( "http", "127.0.0.1", port, "/" ) );
+            fail();
+        }
+        catch ( ConnectException e )
+        {
+            // expected
+        }
+        assertEquals( 0, log.warnings );
+    }
+
+    @Test
+    public void onlyTransientFailuresAreRetryable()
+    {
+        assertTrue( UrlFetcher.isRetryable( new SocketTimeoutException( "Read timed out" ) ) );
+        assertTrue( UrlFetcher.isRetryable( new SocketException( "Connection reset" ) ) );
+
+        assertFalse( UrlFetcher.isRetryable( new UnknownHostException( "example.invalid" ) ) );
+        assertFalse( UrlFetcher.isRetryable( new ConnectException( "Connection refused" ) ) );
+        assertFalse( UrlFetcher.isRetryable( new SSLHandshakeException( "PKIX path building failed" ) ) );
+        assertFalse( UrlFetcher.isRetryable( new MalformedURLException( "no protocol" ) ) );
+        assertFalse( UrlFetcher.isRetryable( new FileNotFoundException( "missing" ) ) );
+        assertFalse( UrlFetcher.isRetryable( new IOException( "unknown" ) ) );
+    }
+
+    private UrlFetcher fetcher( int retries )
+    {
+        return new UrlFetcher( 1000, 200, retries, 10, new SystemStreamLog() );
+    }
+
+    /**
+     * @param failures How many requests fail before the body is served.
+     * @param failure The HTTP status to fail with, <code>-1</code> to drop the connection, <code>-2</code> to stall
+     *            beyond the read timeout.
+     */
+    private URL serve( String path, final int failures, final int failure )
+        throws IOException
+    {
+        server.createContext( path, new HttpHandler()
+        {
+            public void handle( HttpExchange exchange )
+                throws IOException
+            {
+                if ( requests.incrementAndGet() <= failures )
+                {
+                    if ( failure == -1 )
+                    {
+                        exchange.close();
+                        return;
+                    }
+                    if ( failure == -2 )
+                    {
+                        try
+                        {
+                            Thread.sleep( 1000 );
+                        }
+                        catch ( InterruptedException e )
+                        {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                    else
+                    {
+                        exchange.sendResponseHeaders( failure, -1 );
+                        exchange.close();
+                        return;
+                    }
+                }
+                exchange.sendResponseHeaders( 200, BODY.length );
+                OutputStream out = exchange.getResponseBody();
+                out.write( BODY );
+                out.close();
+            }
+        } );
+        return new URL( "http", "127.0.0.1", server.getAddress().getPort(), path );
+    }
+
+    /**
+     * Counts the retries announced as warnings.
+     */
+    private static class CountingLog
+        extends SystemStreamLog
+    {
+        private int warnings;
+
+        @Override
+        public void warn( CharSequence content )
+        {
+            warnings++;
+            super.warn( content );
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package org.codehaus.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.zip.GZIPInputStream;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests exporting properties to several formats at once.
+ */
+public class WritePropertiesTest
+{
+    private final Properties properties = new Properties();
+
+    private File directory;
+
+    @Before
+    public void setUp()
+        throws IOException
+    {
+        directory = Files.createTempDirectory( "write-properties" ).toFile();
+        properties.setProperty( "b.key", "line1\nline2" );
+        properties.setProperty( "a key", " café = \"$HOME\" \\ #!" );
+        properties.setProperty( "c", "" );
+    }
+
+    @Test
+    public void allFormatsAreWrittenInOnePass()
+        throws Exception
+    {
+        File propertiesFile = new File( directory, "app.properties" );
+        PropertyOutput json = new PropertyOutput( "json", new File( directory, "app.json" ) );
+        PropertyOutput env = new PropertyOutput( "env", new File( directory, "app.env" ) );
+        PropertyOutput java = new PropertyOutput( "java", new File( directory, "AppProperties.java" ) );
+        java.setClassName( "com.example.AppProperties" );
+
+        write( propertiesFile, json, env, java );
+
+        Properties loaded = new Properties();
+        InputStream stream = new FileInputStream( propertiesFile );
+        try
+        {
+            loaded.load( stream );
+        }
+        finally
+        {
+            stream.close();
+        }
+        assertEquals( properties, loaded );
+
+        assertEquals( "{\n  \"a key\": \" café = \\\"$HOME\\\" \\\\ #!\",\n  \"b.key\": \"line1\\nline2\",\n"
+            + "  \"c\": \"\"\n}\n", read( json.getFile() ) );
+        assertEquals( "A_KEY=\" café = \\\"\\$HOME\\\" \\\\ #!\"\nB_KEY=\"line1\\nline2\"\nC=\"\"\n",
+                      read( env.getFile() ) );
+    }
+
+    @Test
+    public void outputFileIsWrittenLikePropertiesStore()
+        throws Exception
+    {
+        File propertiesFile = new File( directory, "app.properties" );
+        PropertyOutput output = new PropertyOutput( "properties", new File( directory, "output.properties" ) );
+
+        write( propertiesFile, output );
+
+        String separator = System.getProperty( "line.separator" );
+        ByteArrayOutputStream stored = new ByteArrayOutputStream();
+        properties.store( stored, "Properties" );
+        List<String> expected = Arrays.asList( stored.toString( "ISO-8859-1" ).split( separator ) );
+        List<String> actual = Arrays.asList( read( propertiesFile ).split( separator ) );
+        assertEquals( "#Properties", actual.get( 0 ) );
+        assertTrue( actual.get( 1 ).startsWith( "#" ) );
+        List<String> entries = new ArrayList<String>( expected.subList( 2, expected.size() ) );
+        Collections.sort( entries );
+        assertEquals( entries, actual.subList( 2, actual.size() ) );
+        assertTrue( read( propertiesFile ).endsWith( separator ) );
+
+        // further outputs are reproducible across platforms
+        assertTrue( read( output.getFile() ).startsWith( "#Properties\n#" ) );
+        assertFalse( read( output.getFile() ).contains( "\r" ) );
+    }
+
+    @Test
+    public void missingOutputFails()
+        throws Exception
+    {
+        WriteProjectProperties mojo = new WriteProjectProperties();
+        mojo.setOutputs( null, Collections.<PropertyOutput>emptyList() );
+        try
+        {
+            mojo.execute();
+            fail();
+        }
+        catch ( org.apache.maven.plugin.MojoExecutionException e )
+        {
+            assertTrue( e.getMessage().contains( "outputFile" ) );
+        }
+    }
+
+    @Test
+    public void generatedClassCompiles()
+        throws Exception
+    {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        Assume.assumeNotNull( compiler );
+        properties.setProperty( "a.key", "duplicate constant name" );
+        properties.setProperty( "control", "\u0001\r" );
+        PropertyOutput java = new PropertyOutput( "java", new File( directory, "com/example/AppProperties.java" ) );
+        java.setClassName( "com.example.AppProperties" );
+        java.getFile().getParentFile().mkdirs();
+
+        write( null, java );
+
+        assertEquals( 0, compiler.run( null, null, null, "-d", directory.getPath(), java.getFile().getPath() ) );
+        URLClassLoader loader = new URLClassLoader( new URL[] { directory.toURI().toURL() } );
+        Class<?> type = loader.loadClass( "com.example.AppProperties" );
+        assertEquals( properties.getProperty( "a key" ), type.getField( "A_KEY" ).get( null ) );
+        assertEquals( "duplicate constant name", type.getField( "A_KEY_2" ).get( null ) );
+        assertEquals( "line1\nline2", type.getField( "B_KEY" ).get( null ) );
+        assertEquals( "\u0001\r", type.getField( "CONTROL" ).get( null ) );
+    }
+
+    @Test
+    public void unknownFormatFails()
+        throws Exception
+    {
+        try
+        {
+            write( null, new PropertyOutput( "xml", new File( directory, "app.xml" ) ) );
+            fail();
+        }
+        catch ( org.apache.maven.plugin.MojoExecutionException e )
+        {
+            assertTrue( e.getMessage().contains( "xml" ) );
+        }
+    }
+
+    @Test
+    public void keysAreShardedByLongestPrefix()
+        throws Exception
+    {
+        properties.setProperty( "db.url", "jdbc:h2:mem:" );
+        properties.setProperty( "db.pool.size", "4" );
+        properties.setProperty( "dbx", "no shard" );
+        File propertiesFile = new File( directory, "app.properties" );
+        PropertyShard db = new PropertyShard( "db.", "properties", new File( directory, "db.properties" ) );
+        PropertyShard dbJson = new PropertyShard( "db.", "json", new File( directory, "db.json" ) );
+        PropertyShard pool = new PropertyShard( "db.pool.", "properties", new File( directory, "pool.properties" ) );
+        PropertyShard empty = new PropertyShard( "none.", "properties", new File( directory, "none.properties" ) );
+
+        write( propertiesFile, Arrays.asList( db, dbJson, pool, empty ) );
+
+        Properties remainder = new Properties();
+        remainder.putAll( properties );
+        remainder.remove( "db.url" );
+        remainder.remove( "db.pool.size" );
+        assertEquals( remainder, load( propertiesFile ) );
+        assertEquals( Collections.singletonMap( "db.url", "jdbc:h2:mem:" ), load( db.getFile() ) );
+        assertEquals( "{\n  \"db.url\": \"jdbc:h2:mem:\"\n}\n", read( dbJson.getFile() ) );
+        assertEquals( Collections.singletonMap( "db.pool.size", "4" ), load( pool.getFile() ) );
+        assertTrue( load( empty.getFile() ).isEmpty() );
+    }
+
+    @Test
+    public void gzipFilesAreCompressed()
+        throws Exception
+    {
+        File propertiesFile = new File( directory, "app.properties.gz" );
+        PropertyShard shard = new PropertyShard( "b.", "properties", new File( directory, "b.properties.gz" ) );
+
+        write( propertiesFile, Collections.singletonList( shard ) );
+
+        assertEquals( Collections.singletonMap( "b.key", "line1\nline2" ), load( shard.getFile() ) );
+        properties.remove( "b.key" );
+        assertEquals( properties, load( propertiesFile ) );
+    }
+
+    @Test
+    public void shardWithoutPrefixFails()
+        throws Exception
+    {
+        try
+        {
+            write( null, Collections.singletonList( new PropertyShard( null, "properties",
+                                                                       new File( directory, "a.properties" ) ) ) );
+            fail();
+        }
+        catch ( org.apache.maven.plugin.MojoExecutionException e )
+        {
+            assertTrue( e.getMessage().contains( "prefix" ) );
+        }
+    }
+
+    private void write( File outputFile, List<PropertyShard> shards )
+        throws Exception
+    {
+        WriteActiveProfileProperties mojo = new WriteActiveProfileProperties();
+        mojo.setOutputs( outputFile, Collections.<PropertyOutput>emptyList() );
+        mojo.setShards( shards );
+        mojo.validateOutputFile();
+        mojo.writeProperties( properties, outputFile );
+    }
+
+    private static Properties load( File file )
+        throws IOException
+    {
+        Properties loaded = new Properties();
+        InputStream stream = new FileInputStream( file );
+        try
+        {
+            if ( file.getName().endsWith( ".gz" ) )
+            {
+                stream = new GZIPInputStream( stream );
+            }
+            loaded.load( stream );
+        }
+        finally
+        {
+            stream.close();
+        }
+        return loaded;
+    }
+
+    private void write( File outputFile, PropertyOutput... outputs )
+        throws Exception
+    {
+        WriteActiveProfileProperties mojo = new WriteActiveProfileProperties();
+        mojo.setOutputs( outputFile, Arrays.asList( outputs ) );
+        mojo.validateOutputFile();
+        mojo.writeProperties( properties, outputFile );
+    }
+
+    private static String read( File file )
+        throws IOException
+    {
+        return new String( Files.readAllBytes( file.toPath() ), StandardCharsets.UTF_8 );
+    }
+}